@@ -0,0 +1,370 @@
+/**
+ * Multi-pattern search with an Aho-Corasick automaton
+ * ===================================================
+ * All patterns are merged into one trie with failure links, so the text
+ * is scanned once, left to right, no matter how many patterns there are.
+ * 
+ * The automaton is stored in flat primitive arrays (no per-node maps):
+ * the outgoing edges of node s are edgeChar/edgeTarget[edgeStart[s] ..
+ * edgeStart[s + 1]), sorted by character so they can be binary searched.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class AhoCorasick {
+    
+    /**
+     * Receives (patternId, offset) pairs, where patternId is the index of
+     * the pattern in the list given to build().
+     */
+    public interface MatchListener {
+        void onMatch(int patternId, int offset);
+    }
+    
+    private static final int ROOT = 0;
+    private static final int ASCII = 128;
+    
+    private final String[] patterns;
+    
+    private final int[] edgeStart;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    
+    // Root transitions for ASCII characters, -1 when there is no edge
+    private final int[] rootAscii;
+    
+    private final int[] fail;
+    
+    // Nearest node on the failure chain that ends a pattern (ROOT if none)
+    private final int[] dictLink;
+    
+    // First pattern ending at a node (-1 if none); duplicates are chained
+    private final int[] nodePattern;
+    private final int[] nextSamePattern;
+    
+    private final long buildTimeNanos;
+    
+    private AhoCorasick(String[] patterns, int[] edgeStart, char[] edgeChar, int[] edgeTarget,
+                        int[] fail, int[] dictLink, int[] nodePattern, int[] nextSamePattern,
+                        long buildTimeNanos) {
+        this.patterns = patterns;
+        this.edgeStart = edgeStart;
+        this.edgeChar = edgeChar;
+        this.edgeTarget = edgeTarget;
+        this.fail = fail;
+        this.dictLink = dictLink;
+        this.nodePattern = nodePattern;
+        this.nextSamePattern = nextSamePattern;
+        this.buildTimeNanos = buildTimeNanos;
+        
+        rootAscii = new int[ASCII];
+        Arrays.fill(rootAscii, -1);
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            if (edgeChar[e] < ASCII) {
+                rootAscii[edgeChar[e]] = edgeTarget[e];
+            }
+        }
+    }
+    
+    /**
+     * Builds the automaton. Patterns must be non-empty; duplicates are
+     * allowed and each one is reported under its own id.
+     */
+    public static AhoCorasick build(List<String> patterns) {
+        long start = System.nanoTime();
+        String[] keywords = patterns.toArray(new String[0]);
+        
+        long totalChars = 0;
+        for (int id = 0; id < keywords.length; id++) {
+            if (keywords[id] == null || keywords[id].isEmpty()) {
+                throw new IllegalArgumentException("Pattern " + id + " is empty");
+            }
+            totalChars += keywords[id].length();
+        }
+        if (totalChars >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many pattern characters: " + totalChars);
+        }
+        
+        // STEP 1: Build the trie. Edges live in one flat hash table keyed by (node, char).
+        int maxNodes = (int) totalChars + 1;
+        EdgeTable table = new EdgeTable(maxNodes);
+        int[] nodePattern = new int[maxNodes];
+        Arrays.fill(nodePattern, -1);
+        int[] nextSamePattern = new int[keywords.length];
+        int nodes = 1;
+        
+        // Insert in reverse so duplicate chains come out in ascending id order
+        for (int id = keywords.length - 1; id >= 0; id--) {
+            String keyword = keywords[id];
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                long key = EdgeTable.key(state, keyword.charAt(i));
+                int child = table.get(key);
+                if (child < 0) {
+                    child = nodes++;
+                    table.put(key, child);
+                }
+                state = child;
+            }
+            nextSamePattern[id] = nodePattern[state];
+            nodePattern[state] = id;
+        }
+        
+        // STEP 2: Flatten the edges into sorted arrays, grouped by node
+        long[] keys = table.keys();
+        Arrays.sort(keys);
+        int[] edgeStart = new int[nodes + 1];
+        char[] edgeChar = new char[keys.length];
+        int[] edgeTarget = new int[keys.length];
+        for (int e = 0; e < keys.length; e++) {
+            edgeStart[EdgeTable.node(keys[e]) + 1]++;
+            edgeChar[e] = EdgeTable.character(keys[e]);
+            edgeTarget[e] = table.get(keys[e]);
+        }
+        for (int s = 0; s < nodes; s++) {
+            edgeStart[s + 1] += edgeStart[s];
+        }
+        
+        // STEP 3: Failure and dictionary links, in breadth-first order
+        int[] fail = new int[nodes];
+        int[] dictLink = new int[nodes];
+        int[] queue = new int[nodes];
+        int head = 0;
+        int tail = 0;
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            queue[tail++] = edgeTarget[e];
+        }
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                int v = edgeTarget[e];
+                char c = edgeChar[e];
+                int f = fail[u];
+                int next = child(edgeStart, edgeChar, edgeTarget, f, c);
+                while (next < 0 && f != ROOT) {
+                    f = fail[f];
+                    next = child(edgeStart, edgeChar, edgeTarget, f, c);
+                }
+                fail[v] = next >= 0 ? next : ROOT;
+                dictLink[v] = nodePattern[fail[v]] >= 0 ? fail[v] : dictLink[fail[v]];
+                queue[tail++] = v;
+            }
+        }
+        
+        return new AhoCorasick(keywords,
+            edgeStart, edgeChar, edgeTarget, fail, dictLink,
+            Arrays.copyOf(nodePattern, nodes), nextSamePattern,
+            System.nanoTime() - start);
+    }
+    
+    private static int child(int[] edgeStart, char[] edgeChar, int[] edgeTarget, int state, char c) {
+        int lo = edgeStart[state];
+        int hi = edgeStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char x = edgeChar[mid];
+            if (x < c) {
+                lo = mid + 1;
+            } else if (x > c) {
+                hi = mid - 1;
+            } else {
+                return edgeTarget[mid];
+            }
+        }
+        return -1;
+    }
+    
+    public int patternCount() {
+        return patterns.length;
+    }
+    
+    public String pattern(int patternId) {
+        return patterns[patternId];
+    }
+    
+    /**
+     * Scans the text once and reports every match of every pattern.
+     * Matches are reported in order of their end position; matches ending
+     * at the same position are reported longest first.
+     */
+    public void findAll(String text, MatchListener listener) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            int s = nodePattern[state] >= 0 ? state : dictLink[state];
+            while (s != ROOT) {
+                for (int id = nodePattern[s]; id >= 0; id = nextSamePattern[id]) {
+                    listener.onMatch(id, i - patterns[id].length() + 1);
+                }
+                s = dictLink[s];
+            }
+        }
+    }
+    
+    /**
+     * Collects every match; see findAll(String, MatchListener) for ordering.
+     */
+    public Matches findAll(String text) {
+        Matches matches = new Matches();
+        findAll(text, matches::add);
+        return matches;
+    }
+    
+    private int next(int state, char c) {
+        while (true) {
+            int target;
+            if (state == ROOT && c < ASCII) {
+                target = rootAscii[c];
+            } else {
+                target = child(edgeStart, edgeChar, edgeTarget, state, c);
+            }
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+    
+    public int stateCount() {
+        return fail.length;
+    }
+    
+    public long buildTimeNanos() {
+        return buildTimeNanos;
+    }
+    
+    /**
+     * Approximate heap used by the automaton's arrays, in bytes. The
+     * pattern strings themselves are not counted.
+     */
+    public long memoryFootprintBytes() {
+        long bytes = 0;
+        bytes += 4L * edgeStart.length;
+        bytes += 2L * edgeChar.length;
+        bytes += 4L * edgeTarget.length;
+        bytes += 4L * rootAscii.length;
+        bytes += 4L * fail.length;
+        bytes += 4L * dictLink.length;
+        bytes += 4L * nodePattern.length;
+        bytes += 4L * nextSamePattern.length;
+        bytes += 8L * patterns.length;
+        // One array header per array
+        bytes += 9L * 16;
+        return bytes;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("AhoCorasick[%d patterns, %d states, %d edges, %.1f KB, built in %.2f ms]",
+            patterns.length, stateCount(), edgeChar.length,
+            memoryFootprintBytes() / 1024.0, buildTimeNanos / 1e6);
+    }
+    
+    /**
+     * (patternId, offset) pairs held in two primitive lists.
+     */
+    public static final class Matches {
+        private final IntList patternIds = new IntList();
+        private final IntList offsets = new IntList();
+        
+        private void add(int patternId, int offset) {
+            patternIds.add(patternId);
+            offsets.add(offset);
+        }
+        
+        public int size() {
+            return offsets.size();
+        }
+        
+        public int patternId(int index) {
+            return patternIds.get(index);
+        }
+        
+        public int offset(int index) {
+            return offsets.get(index);
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append('(').append(patternId(i)).append(", ").append(offset(i)).append(')');
+            }
+            return sb.append(']').toString();
+        }
+    }
+    
+    /**
+     * Open-addressing hash table from (node, char) to child node, used
+     * only while building the trie.
+     */
+    private static final class EdgeTable {
+        private static final long EMPTY = -1L;
+        
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+        private int size;
+        
+        EdgeTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            mask = capacity - 1;
+        }
+        
+        static long key(int node, char c) {
+            return ((long) node << 16) | c;
+        }
+        
+        static int node(long key) {
+            return (int) (key >>> 16);
+        }
+        
+        static char character(long key) {
+            return (char) key;
+        }
+        
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            int i = (int) (h >>> 32) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+        
+        int get(long key) {
+            int i = slot(key);
+            return keys[i] == EMPTY ? -1 : values[i];
+        }
+        
+        void put(long key, int value) {
+            int i = slot(key);
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+        
+        long[] keys() {
+            long[] result = new long[size];
+            int n = 0;
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    result[n++] = key;
+                }
+            }
+            return result;
+        }
+    }
+}
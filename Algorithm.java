@@ -0,0 +1,125 @@
+/**
+ * The built-in search algorithms
+ * ==============================
+ * Use select() to let the engine choose, or pass a constant to
+ * PatternSearch.search to force a specific algorithm.
+ */
+
+public enum Algorithm implements SearchAlgorithm {
+    
+    NAIVE("Naive (brute force)") {
+        @Override
+        SearchAlgorithm.Finder create(String pattern) {
+            return new NaiveSearch(pattern);
+        }
+    },
+    
+    KMP("Knuth-Morris-Pratt") {
+        @Override
+        SearchAlgorithm.Finder create(String pattern) {
+            return new KmpSearch(pattern);
+        }
+    },
+    
+    HORSPOOL("Boyer-Moore-Horspool") {
+        @Override
+        SearchAlgorithm.Finder create(String pattern) {
+            return new HorspoolSearch(pattern);
+        }
+    },
+    
+    TWO_WAY("Crochemore-Perrin Two-Way") {
+        @Override
+        SearchAlgorithm.Finder create(String pattern) {
+            return new TwoWaySearch(pattern);
+        }
+    },
+    
+    RABIN_KARP("Rabin-Karp") {
+        @Override
+        SearchAlgorithm.Finder create(String pattern) {
+            return new RabinKarpSearch(pattern);
+        }
+    },
+    
+    /**
+     * Vector API candidate scan. Runs the scalar naive search instead when
+     * jdk.incubator.vector is not available (see VectorSupport).
+     */
+    SIMD("SIMD first/last character scan") {
+        @Override
+        SearchAlgorithm.Finder create(String pattern) {
+            return VectorSupport.prepare(pattern);
+        }
+    };
+    
+    // Below this many characters the naive loop is as fast as anything else
+    private static final int SHORT_TEXT = 256;
+    
+    // Patterns with this many distinct characters or fewer count as "small alphabet"
+    private static final int SMALL_ALPHABET = 4;
+    
+    // Small-alphabet patterns at least this long go to Two-Way instead of KMP
+    private static final int LONG_PATTERN = 32;
+    
+    private final String displayName;
+    
+    Algorithm(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String displayName() {
+        return displayName;
+    }
+    
+    abstract SearchAlgorithm.Finder create(String pattern);
+    
+    @Override
+    public final SearchAlgorithm.Finder prepare(String pattern) {
+        // Every algorithm shares the naive handling of the empty pattern
+        if (pattern.isEmpty()) {
+            return new NaiveSearch(pattern);
+        }
+        return create(pattern);
+    }
+    
+    /**
+     * Picks an algorithm from the pattern length, the pattern's alphabet
+     * size and the text length.
+     * 
+     * - Short texts and 1-2 character patterns: NAIVE
+     * - Small alphabets (repetitive text, DNA, binary): KMP, or TWO_WAY
+     *   for long patterns, both of which stay linear on inputs like "aaaa"
+     * - Everything else: HORSPOOL, which skips ahead on mismatches
+     * 
+     * RABIN_KARP and SIMD are never picked automatically; they have to be
+     * forced.
+     */
+    public static Algorithm select(String pattern, int textLength) {
+        int m = pattern.length();
+        if (m <= 2 || textLength < SHORT_TEXT) {
+            return NAIVE;
+        }
+        if (alphabetSize(pattern) <= SMALL_ALPHABET) {
+            return m >= LONG_PATTERN ? TWO_WAY : KMP;
+        }
+        return HORSPOOL;
+    }
+    
+    /**
+     * Counts distinct characters in the pattern, bucketed by their low
+     * byte. Stops counting once the alphabet is clearly not small.
+     */
+    static int alphabetSize(String pattern) {
+        boolean[] seen = new boolean[256];
+        int count = 0;
+        for (int i = 0; i < pattern.length() && count <= SMALL_ALPHABET; i++) {
+            int bucket = pattern.charAt(i) & 0xFF;
+            if (!seen[bucket]) {
+                seen[bucket] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Approximate search: occurrences within k mismatches or k edits
+ * ==============================================================
+ * Both distances are computed bit-parallel, one bit per pattern
+ * character, so a text character costs a few word operations instead of
+ * m comparisons:
+ * 
+ * - HAMMING (substitutions only): Shift-And with k + 1 state vectors
+ *   (Wu-Manber), O(n * k * ceil(m / 64)).
+ * - LEVENSHTEIN (substitutions, insertions, deletions): Myers' bit-vector
+ *   algorithm, O(n * ceil(m / 64)) whatever k is.
+ * 
+ * Patterns longer than 64 characters are split into 64-bit blocks.
+ * Occurrences are reported by their END offset (exclusive) with the
+ * smallest distance there. For Hamming the start is end - length(); for
+ * Levenshtein the occurrence may start anywhere from end - length() - k.
+ */
+
+import java.util.Arrays;
+
+public final class ApproximateSearch {
+    
+    public enum Distance { HAMMING, LEVENSHTEIN }
+    
+    /**
+     * Receives each end offset (exclusive) at which the pattern occurs
+     * within the maximum distance, in increasing order.
+     */
+    public interface MatchListener {
+        void onMatch(int end, int distance);
+    }
+    
+    private final String pattern;
+    private final int maxDistance;
+    private final Distance distance;
+    
+    // Number of 64-bit words per bit vector
+    private final int words;
+    
+    // Bit i of word w in row r is set when pattern[64 * w + i] is the
+    // character of row r. Row 0 is for characters not in the pattern.
+    private final long[] peq;
+    private final int[] asciiRow;
+    private final char[] otherChars;
+    
+    private ApproximateSearch(String pattern, int maxDistance, Distance distance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("Negative distance: " + maxDistance);
+        }
+        this.pattern = pattern;
+        this.maxDistance = maxDistance;
+        this.distance = distance;
+        int m = pattern.length();
+        words = Math.max(1, (m + 63) >>> 6);
+        
+        asciiRow = new int[128];
+        otherChars = pattern.chars().filter(c -> c >= 128).distinct().sorted()
+            .collect(StringBuilder::new, (sb, c) -> sb.append((char) c), StringBuilder::append)
+            .toString().toCharArray();
+        int rows = 1 + otherChars.length;
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c < 128 && asciiRow[c] == 0) {
+                asciiRow[c] = rows++;
+            }
+        }
+        peq = new long[rows * words];
+        for (int i = 0; i < m; i++) {
+            peq[row(pattern.charAt(i)) * words + (i >>> 6)] |= 1L << i;
+        }
+    }
+    
+    public static ApproximateSearch hamming(String pattern, int maxMismatches) {
+        return new ApproximateSearch(pattern, maxMismatches, Distance.HAMMING);
+    }
+    
+    public static ApproximateSearch levenshtein(String pattern, int maxEdits) {
+        return new ApproximateSearch(pattern, maxEdits, Distance.LEVENSHTEIN);
+    }
+    
+    public String pattern() {
+        return pattern;
+    }
+    
+    public int maxDistance() {
+        return maxDistance;
+    }
+    
+    public Distance distance() {
+        return distance;
+    }
+    
+    public int length() {
+        return pattern.length();
+    }
+    
+    /**
+     * Returns the end offsets (exclusive) of all occurrences.
+     */
+    public IntList findAll(String text) {
+        IntList ends = new IntList();
+        search(text, (end, d) -> ends.add(end));
+        return ends;
+    }
+    
+    public void search(String text, MatchListener listener) {
+        if (pattern.isEmpty()) {
+            for (int end = 0; end <= text.length(); end++) {
+                listener.onMatch(end, 0);
+            }
+        } else if (distance == Distance.HAMMING) {
+            if (words == 1) {
+                hammingShort(text, listener);
+            } else {
+                hammingBlocked(text, listener);
+            }
+        } else {
+            if (words == 1) {
+                myersShort(text, listener);
+            } else {
+                myersBlocked(text, listener);
+            }
+        }
+    }
+    
+    // Shift-And: bit i of state[d] is set when pattern[0..i] matches the
+    // text ending here with at most d mismatches
+    private void hammingShort(String text, MatchListener listener) {
+        int m = pattern.length();
+        int k = Math.min(maxDistance, m);
+        long last = 1L << (m - 1);
+        long[] state = new long[k + 1];
+        for (int j = 0; j < text.length(); j++) {
+            long eq = peq[row(text.charAt(j))];
+            long previous = state[0];
+            state[0] = ((previous << 1) | 1) & eq;
+            for (int d = 1; d <= k; d++) {
+                long current = state[d];
+                // Match the character, or spend one mismatch on it
+                state[d] = (((current << 1) | 1) & eq) | ((previous << 1) | 1);
+                previous = current;
+            }
+            if ((state[k] & last) != 0) {
+                int d = 0;
+                while ((state[d] & last) == 0) {
+                    d++;
+                }
+                listener.onMatch(j + 1, d);
+            }
+        }
+    }
+    
+    // The same over blocks of 64 bits. Rows are updated from d = k down to
+    // 0 so that row d - 1 still holds the previous column when row d reads
+    // it. Only blocks up to one past the highest non-zero word can change,
+    // and on most texts that is the first one or two.
+    private void hammingBlocked(String text, MatchListener listener) {
+        int m = pattern.length();
+        int k = Math.min(maxDistance, m);
+        int lastWord = (m - 1) >>> 6;
+        long last = 1L << (m - 1);
+        long[] state = new long[(k + 1) * words];
+        int active = 0;
+        for (int j = 0; j < text.length(); j++) {
+            int eq = row(text.charAt(j)) * words;
+            int limit = Math.min(words, active + 1);
+            int highest = -1;
+            for (int d = k; d >= 0; d--) {
+                int base = d * words;
+                long carryMatch = 1;
+                long carryMismatch = 1;
+                for (int w = 0; w < limit; w++) {
+                    long s = state[base + w];
+                    long shifted = ((s << 1) | carryMatch) & peq[eq + w];
+                    carryMatch = s >>> 63;
+                    if (d > 0) {
+                        // Match the character, or spend one mismatch on it
+                        long p = state[base - words + w];
+                        shifted |= (p << 1) | carryMismatch;
+                        carryMismatch = p >>> 63;
+                    }
+                    state[base + w] = shifted;
+                    if (shifted != 0 && w > highest) {
+                        highest = w;
+                    }
+                }
+            }
+            active = highest + 1;
+            if ((state[k * words + lastWord] & last) != 0) {
+                int d = 0;
+                while ((state[d * words + lastWord] & last) == 0) {
+                    d++;
+                }
+                listener.onMatch(j + 1, d);
+            }
+        }
+    }
+    
+    // Myers: pv/mv hold the +1/-1 vertical deltas of the current column of
+    // the edit distance table whose top row is 0 (a match may start anywhere)
+    private void myersShort(String text, MatchListener listener) {
+        int m = pattern.length();
+        long last = 1L << (m - 1);
+        long pv = -1L;
+        long mv = 0;
+        int score = m;
+        if (score <= maxDistance) {
+            listener.onMatch(0, score);
+        }
+        for (int j = 0; j < text.length(); j++) {
+            long eq = peq[row(text.charAt(j))];
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            ph <<= 1;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+            if (score <= maxDistance) {
+                listener.onMatch(j + 1, score);
+            }
+        }
+    }
+    
+    // The same over blocks of 64 rows. The horizontal delta leaving the
+    // bottom of a block (as a +1 bit and a -1 bit) enters the next block.
+    private void myersBlocked(String text, MatchListener listener) {
+        int m = pattern.length();
+        int lastWord = words - 1;
+        long last = 1L << (m - 1);
+        long[] pv = new long[words];
+        long[] mv = new long[words];
+        Arrays.fill(pv, -1L);
+        int score = m;
+        if (score <= maxDistance) {
+            listener.onMatch(0, score);
+        }
+        for (int j = 0; j < text.length(); j++) {
+            int eqRow = row(text.charAt(j)) * words;
+            // The top row is all zeros, so nothing enters the first block
+            long hinPlus = 0;
+            long hinMinus = 0;
+            for (int w = 0; w < words; w++) {
+                long p = pv[w];
+                long n = mv[w];
+                long eq = peq[eqRow + w];
+                long xv = eq | n;
+                eq |= hinMinus;
+                long xh = (((eq & p) + p) ^ p) | eq;
+                long ph = n | ~(xh | p);
+                long mh = p & xh;
+                if (w == lastWord) {
+                    if ((ph & last) != 0) {
+                        score++;
+                    } else if ((mh & last) != 0) {
+                        score--;
+                    }
+                }
+                long outPlus = ph >>> 63;
+                long outMinus = mh >>> 63;
+                ph = (ph << 1) | hinPlus;
+                mh = (mh << 1) | hinMinus;
+                pv[w] = mh | ~(xv | ph);
+                mv[w] = ph & xv;
+                hinPlus = outPlus;
+                hinMinus = outMinus;
+            }
+            if (score <= maxDistance) {
+                listener.onMatch(j + 1, score);
+            }
+        }
+    }
+    
+    private int row(char c) {
+        if (c < 128) {
+            return asciiRow[c];
+        }
+        int i = Arrays.binarySearch(otherChars, c);
+        return i < 0 ? 0 : i + 1;
+    }
+    
+    @Override
+    public String toString() {
+        return "ApproximateSearch['" + pattern + "', " + distance + " <= " + maxDistance + "]";
+    }
+}
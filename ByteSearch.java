@@ -0,0 +1,118 @@
+/**
+ * Exact search over raw bytes
+ * ===========================
+ * Boyer-Moore-Horspool on bytes, with an exact 256-entry shift table.
+ * Works on byte arrays and on any ByteBuffer (heap, direct or
+ * memory-mapped) using absolute reads, so the buffer's position and limit
+ * are never touched. Heap buffers are searched through their backing
+ * array, which avoids a bounds-checked get() per byte.
+ * 
+ * Off-heap memory held in a MemorySegment can be searched through
+ * segment.asByteBuffer(), which takes the direct-buffer loop.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public final class ByteSearch {
+    
+    private final byte[] pattern;
+    private final int[] shift;
+    
+    public ByteSearch(byte[] pattern) {
+        this.pattern = pattern.clone();
+        int m = pattern.length;
+        shift = new int[256];
+        Arrays.fill(shift, Math.max(m, 1));
+        for (int j = 0; j < m - 1; j++) {
+            shift[pattern[j] & 0xFF] = m - 1 - j;
+        }
+    }
+    
+    public int patternLength() {
+        return pattern.length;
+    }
+    
+    /**
+     * Returns the first match in [from, to) of the buffer, or -1. As with
+     * the String finders, a match at i needs i >= from and i + m <= to.
+     */
+    public int indexOf(ByteBuffer buffer, int from, int to) {
+        if (buffer.hasArray()) {
+            int base = buffer.arrayOffset();
+            int i = indexOf(buffer.array(), base + from, base + to);
+            return i < 0 ? -1 : i - base;
+        }
+        int m = pattern.length;
+        
+        // An empty pattern matches at every position, including the end
+        if (m == 0) {
+            return from <= to ? from : -1;
+        }
+        
+        int limit = to - m;
+        byte last = pattern[m - 1];
+        int i = from;
+        while (i <= limit) {
+            byte b = buffer.get(i + m - 1);
+            if (b == last) {
+                int j = m - 2;
+                while (j >= 0 && buffer.get(i + j) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[b & 0xFF];
+        }
+        return -1;
+    }
+    
+    /**
+     * Same for a byte array.
+     */
+    public int indexOf(byte[] data, int from, int to) {
+        int m = pattern.length;
+        if (m == 0) {
+            return from <= to ? from : -1;
+        }
+        int limit = to - m;
+        byte last = pattern[m - 1];
+        int i = from;
+        while (i <= limit) {
+            byte b = data[i + m - 1];
+            if (b == last) {
+                int j = m - 2;
+                while (j >= 0 && data[i + j] == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[b & 0xFF];
+        }
+        return -1;
+    }
+    
+    /**
+     * Reports every match in [from, to) to the sink, in increasing order.
+     */
+    public void findAll(ByteBuffer buffer, int from, int to, IntConsumer sink) {
+        int i = indexOf(buffer, from, to);
+        while (i >= 0) {
+            sink.accept(i);
+            i = indexOf(buffer, i + 1, to);
+        }
+    }
+    
+    public void findAll(byte[] data, int from, int to, IntConsumer sink) {
+        int i = indexOf(data, from, to);
+        while (i >= 0) {
+            sink.accept(i);
+            i = indexOf(data, i + 1, to);
+        }
+    }
+}
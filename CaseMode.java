@@ -0,0 +1,84 @@
+/**
+ * How letters of different case are compared
+ * ===========================================
+ * Case is folded one character at a time during comparison, never by
+ * lowercasing a copy of the text. Folding never changes the length of a
+ * character (String.toLowerCase can: "İ" becomes two chars), so match
+ * offsets always point into the original text.
+ */
+
+public enum CaseMode {
+    
+    /** Characters must be identical. */
+    SENSITIVE {
+        @Override
+        public char fold(char c) {
+            return c;
+        }
+        
+        @Override
+        char foldedCharAt(String s, int i) {
+            return s.charAt(i);
+        }
+    },
+    
+    /** Only A-Z and a-z are treated as equal; fastest of the ignore-case modes. */
+    IGNORE_ASCII {
+        @Override
+        public char fold(char c) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        
+        @Override
+        char foldedCharAt(String s, int i) {
+            return fold(s.charAt(i));
+        }
+    },
+    
+    /**
+     * Simple Unicode case folding, the same rule as String.equalsIgnoreCase,
+     * applied per code point so letters outside the BMP fold too.
+     */
+    IGNORE_UNICODE {
+        @Override
+        public char fold(char c) {
+            if (c < 0x80) {
+                return IGNORE_ASCII.fold(c);
+            }
+            return Character.toLowerCase(Character.toUpperCase(c));
+        }
+        
+        @Override
+        char foldedCharAt(String s, int i) {
+            char c = s.charAt(i);
+            if (!Character.isSurrogate(c)) {
+                return fold(c);
+            }
+            // Fold the whole surrogate pair and return this half of the result
+            if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int folded = foldCodePoint(Character.toCodePoint(c, s.charAt(i + 1)));
+                return Character.isSupplementaryCodePoint(folded) ? Character.highSurrogate(folded) : c;
+            }
+            if (Character.isLowSurrogate(c) && i > 0 && Character.isHighSurrogate(s.charAt(i - 1))) {
+                int folded = foldCodePoint(Character.toCodePoint(s.charAt(i - 1), c));
+                return Character.isSupplementaryCodePoint(folded) ? Character.lowSurrogate(folded) : c;
+            }
+            return c;
+        }
+        
+        private int foldCodePoint(int codePoint) {
+            return Character.toLowerCase(Character.toUpperCase(codePoint));
+        }
+    };
+    
+    /**
+     * Folds a single char. Surrogate halves are returned unchanged.
+     */
+    public abstract char fold(char c);
+    
+    /**
+     * Folded value of s.charAt(i), looking at the neighbouring char when
+     * s.charAt(i) is half of a surrogate pair.
+     */
+    abstract char foldedCharAt(String s, int i);
+}
@@ -0,0 +1,212 @@
+/**
+ * Exact search over char data that is not a String
+ * ================================================
+ * The char counterpart of ByteSearch: Boyer-Moore-Horspool with a shift
+ * table indexed by the low byte of a char, as in HorspoolSearch. There is
+ * one loop per representation - char[], CharBuffer without a backing
+ * array, and any other CharSequence - so each call site only ever sees
+ * one type and nothing has to be copied into a String first. Strings
+ * themselves are handed to the regular engine, whose compiled pattern is
+ * only looked up once a String is actually searched.
+ * 
+ * PatternSearch keeps one instance per cached pattern, so its char[] and
+ * CharSequence overloads do not rebuild the table on every call.
+ * 
+ * Offsets are indices into the caller's array, buffer or sequence. The
+ * CharBuffer methods take and return absolute indices, like get(int); a
+ * CharBuffer passed as a CharSequence is indexed from its position, like
+ * charAt, and is searched up to its limit only.
+ */
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public final class CharSearch {
+    
+    private static final int TABLE_SIZE = 256;
+    
+    // Null until a String is searched, unless given at construction; a
+    // race only looks it up twice
+    private CompiledPattern compiled;
+    private final char[] chars;
+    private final int[] shift;
+    
+    public CharSearch(String pattern) {
+        this(pattern, null);
+    }
+    
+    CharSearch(CompiledPattern compiled) {
+        this(compiled.pattern(), compiled);
+    }
+    
+    private CharSearch(String pattern, CompiledPattern compiled) {
+        this.compiled = compiled;
+        chars = pattern.toCharArray();
+        int m = chars.length;
+        shift = new int[TABLE_SIZE];
+        Arrays.fill(shift, Math.max(m, 1));
+        for (int j = 0; j < m - 1; j++) {
+            shift[chars[j] & 0xFF] = m - 1 - j;
+        }
+    }
+    
+    public int patternLength() {
+        return chars.length;
+    }
+    
+    /**
+     * Returns the first match in [from, to) of the array, or -1. A match
+     * at i needs i >= from and i + m <= to.
+     */
+    public int indexOf(char[] text, int from, int to) {
+        int m = chars.length;
+        if (m == 0) {
+            return from <= to ? from : -1;
+        }
+        int limit = to - m;
+        char last = chars[m - 1];
+        int i = from;
+        while (i <= limit) {
+            char c = text[i + m - 1];
+            if (c == last) {
+                int j = m - 2;
+                while (j >= 0 && text[i + j] == chars[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[c & 0xFF];
+        }
+        return -1;
+    }
+    
+    /**
+     * Same for a CharBuffer, by absolute index (position and limit are
+     * not changed, and to may not pass the limit). Buffers backed by an
+     * array are searched through the array.
+     */
+    public int indexOf(CharBuffer text, int from, int to) {
+        if (from < 0 || to > text.limit()) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside [0, " + text.limit() + ")");
+        }
+        if (text.hasArray()) {
+            int base = text.arrayOffset();
+            int i = indexOf(text.array(), base + from, base + to);
+            return i < 0 ? -1 : i - base;
+        }
+        int m = chars.length;
+        if (m == 0) {
+            return from <= to ? from : -1;
+        }
+        int limit = to - m;
+        char last = chars[m - 1];
+        int i = from;
+        while (i <= limit) {
+            char c = text.get(i + m - 1);
+            if (c == last) {
+                int j = m - 2;
+                while (j >= 0 && text.get(i + j) == chars[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[c & 0xFF];
+        }
+        return -1;
+    }
+    
+    /**
+     * Same for any CharSequence. Strings go to the regular engine and
+     * CharBuffers to the buffer loop above, shifted by their position.
+     */
+    public int indexOf(CharSequence text, int from, int to) {
+        if (text instanceof String) {
+            if (from > to) {
+                return -1;
+            }
+            return compiled().finderFor(text.length()).indexOf((String) text, from, to);
+        }
+        if (text instanceof CharBuffer) {
+            CharBuffer buffer = (CharBuffer) text;
+            int base = buffer.position();
+            int i = indexOf(buffer, base + from, base + to);
+            return i < 0 ? -1 : i - base;
+        }
+        return indexOfSequence(text, from, to);
+    }
+    
+    private CompiledPattern compiled() {
+        CompiledPattern pattern = compiled;
+        if (pattern == null) {
+            pattern = PatternSearch.cached(new String(chars), null, CaseMode.SENSITIVE);
+            compiled = pattern;
+        }
+        return pattern;
+    }
+    
+    private int indexOfSequence(CharSequence text, int from, int to) {
+        int m = chars.length;
+        if (m == 0) {
+            return from <= to ? from : -1;
+        }
+        int limit = to - m;
+        char last = chars[m - 1];
+        int i = from;
+        while (i <= limit) {
+            char c = text.charAt(i + m - 1);
+            if (c == last) {
+                int j = m - 2;
+                while (j >= 0 && text.charAt(i + j) == chars[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[c & 0xFF];
+        }
+        return -1;
+    }
+    
+    /**
+     * Reports every match in [from, to) of the array, in increasing order.
+     */
+    public void findAll(char[] text, int from, int to, IntConsumer sink) {
+        int i = indexOf(text, from, to);
+        while (i >= 0) {
+            sink.accept(i);
+            i = indexOf(text, i + 1, to);
+        }
+    }
+    
+    public void findAll(CharBuffer text, int from, int to, IntConsumer sink) {
+        int i = indexOf(text, from, to);
+        while (i >= 0) {
+            sink.accept(i);
+            i = indexOf(text, i + 1, to);
+        }
+    }
+    
+    public void findAll(CharSequence text, int from, int to, IntConsumer sink) {
+        if (text instanceof String) {
+            compiled().findAll((String) text, from, to, sink, null);
+            return;
+        }
+        if (text instanceof CharBuffer) {
+            CharBuffer buffer = (CharBuffer) text;
+            int base = buffer.position();
+            findAll(buffer, base + from, base + to, i -> sink.accept(i - base));
+            return;
+        }
+        int i = indexOfSequence(text, from, to);
+        while (i >= 0) {
+            sink.accept(i);
+            i = indexOfSequence(text, i + 1, to);
+        }
+    }
+}
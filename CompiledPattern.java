@@ -0,0 +1,281 @@
+/**
+ * A pattern whose preprocessing has already been done
+ * ===================================================
+ * Build one with PatternSearch.compile and reuse it against as many texts
+ * as needed. Instances are immutable and safe to share between threads.
+ */
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+public final class CompiledPattern {
+    
+    private final String pattern;
+    
+    // The forced algorithm, or null when the algorithm is selected automatically
+    private final SearchAlgorithm algorithm;
+    
+    // Used for texts that Algorithm.select would not hand to the naive loop
+    private final SearchAlgorithm.Finder finder;
+    
+    // Used for short texts; the same as finder when the algorithm is forced
+    // or case is ignored
+    private final SearchAlgorithm.Finder shortTextFinder;
+    
+    private final CaseMode caseMode;
+    
+    // Skip table for char[] and CharSequence texts, built on first use; a
+    // race only builds it twice
+    private volatile CharSearch charSearch;
+    
+    CompiledPattern(String pattern, SearchAlgorithm algorithm, CaseMode caseMode) {
+        if (pattern == null) {
+            throw new NullPointerException("pattern");
+        }
+        if (caseMode == null) {
+            throw new NullPointerException("caseMode");
+        }
+        if (algorithm != null && caseMode != CaseMode.SENSITIVE) {
+            throw new IllegalArgumentException("A forced algorithm only supports case-sensitive search");
+        }
+        this.pattern = pattern;
+        this.algorithm = algorithm;
+        this.caseMode = caseMode;
+        if (caseMode != CaseMode.SENSITIVE && !pattern.isEmpty()) {
+            finder = new FoldingSearch(pattern, caseMode);
+            shortTextFinder = finder;
+        } else if (algorithm != null) {
+            finder = algorithm.prepare(pattern);
+            shortTextFinder = finder;
+        } else {
+            Algorithm longText = Algorithm.select(pattern, Integer.MAX_VALUE);
+            finder = longText.prepare(pattern);
+            shortTextFinder = longText == Algorithm.NAIVE ? finder : Algorithm.NAIVE.prepare(pattern);
+        }
+    }
+    
+    public String pattern() {
+        return pattern;
+    }
+    
+    /**
+     * Returns the forced algorithm, or null if it is picked per text.
+     */
+    public SearchAlgorithm algorithm() {
+        return algorithm;
+    }
+    
+    public CaseMode caseMode() {
+        return caseMode;
+    }
+    
+    /**
+     * The search over char data that is not a String, sharing this
+     * pattern's cache entry. Only meaningful for a case-sensitive pattern.
+     */
+    CharSearch charSearch() {
+        CharSearch search = charSearch;
+        if (search == null) {
+            search = new CharSearch(this);
+            charSearch = search;
+        }
+        return search;
+    }
+    
+    public int length() {
+        return pattern.length();
+    }
+    
+    public List<Integer> search(String text) {
+        return searchAll(text).asList();
+    }
+    
+    public IntList searchAll(String text) {
+        IntList matches = new IntList();
+        SearchListener[] listeners = SearchListeners.get();
+        if (listeners.length == 0) {
+            finderFor(text.length()).findAll(text, 0, text.length(), matches);
+        } else {
+            SearchMetrics metrics = new SearchMetrics();
+            findAllCounted(text, 0, text.length(), matches, metrics);
+            notifyListeners(listeners, metrics);
+        }
+        return matches;
+    }
+    
+    /**
+     * Returns true as soon as one match is found.
+     */
+    public boolean contains(String text) {
+        return indexOf(text, 0) >= 0;
+    }
+    
+    /**
+     * Returns the first match at or after from, or -1 if there is none.
+     */
+    public int indexOf(String text, int from) {
+        int n = text.length();
+        if (from > n) {
+            return -1;
+        }
+        return finderFor(n).indexOf(text, Math.max(from, 0), n);
+    }
+    
+    /**
+     * Counts the matches without collecting them.
+     */
+    public int count(String text) {
+        Counter counter = new Counter();
+        findAll(text, 0, text.length(), counter, null);
+        return counter.count;
+    }
+    
+    /**
+     * Returns at most the first k matches; the scan stops at the k-th.
+     */
+    public IntList findFirst(String text, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative match limit: " + k);
+        }
+        IntList matches = new IntList(Math.min(k, 16));
+        int i = k == 0 ? -1 : indexOf(text, 0);
+        while (i >= 0) {
+            matches.add(i);
+            if (matches.size() == k) {
+                break;
+            }
+            i = indexOf(text, i + 1);
+        }
+        return matches;
+    }
+    
+    /**
+     * Returns a lazy iterator over the matches: each call to next() scans
+     * only as far as the next match, and nothing is scanned once the
+     * caller stops asking.
+     */
+    public PrimitiveIterator.OfInt matches(String text) {
+        return new MatchIterator(text);
+    }
+    
+    /**
+     * The matches as a lazy, sequential stream, so limit(), findFirst()
+     * and anyMatch() end the scan early.
+     */
+    public IntStream stream(String text) {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(matches(text),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED
+                | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+    
+    /**
+     * Reports every match in [from, to) of the text, in increasing order: a
+     * match at i needs i >= from and i + length() <= to. When metrics is not
+     * null, the work done is added to it. Registered SearchListeners are
+     * told about this search either way.
+     */
+    public void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        if (from < 0 || from > to || to > text.length()) {
+            throw new IndexOutOfBoundsException(
+                "Range [" + from + ", " + to + ") out of bounds for length " + text.length());
+        }
+        SearchListener[] listeners = SearchListeners.get();
+        if (metrics == null && listeners.length == 0) {
+            finderFor(text.length()).findAll(text, from, to, sink);
+        } else if (listeners.length == 0) {
+            findAllCounted(text, from, to, sink, metrics);
+        } else {
+            SearchMetrics call = new SearchMetrics();
+            findAllCounted(text, from, to, sink, call);
+            if (metrics != null) {
+                metrics.add(call);
+            }
+            notifyListeners(listeners, call);
+        }
+    }
+    
+    /**
+     * Runs the counting path of the finder and adds the wall time and the
+     * bytes allocated by this thread meanwhile.
+     */
+    private void findAllCounted(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        long allocatedBefore = SearchMetrics.threadAllocatedBytes();
+        long start = System.nanoTime();
+        finderFor(text.length()).findAll(text, from, to, sink, metrics);
+        metrics.wallTimeNanos += System.nanoTime() - start;
+        if (allocatedBefore >= 0) {
+            metrics.allocatedBytes += SearchMetrics.threadAllocatedBytes() - allocatedBefore;
+        }
+        metrics.searches++;
+    }
+    
+    private void notifyListeners(SearchListener[] listeners, SearchMetrics metrics) {
+        for (SearchListener listener : listeners) {
+            listener.searchCompleted(this, metrics);
+        }
+    }
+    
+    /**
+     * Returns the prepared finder to use for a text of the given length.
+     */
+    SearchAlgorithm.Finder finderFor(int textLength) {
+        if (finder == shortTextFinder) {
+            return finder;
+        }
+        if (Algorithm.select(pattern, textLength) == Algorithm.NAIVE) {
+            return shortTextFinder;
+        }
+        return finder;
+    }
+    
+    private final class MatchIterator implements PrimitiveIterator.OfInt {
+        
+        private final String text;
+        private final SearchAlgorithm.Finder finder;
+        
+        // The match next() will return, or -1 once there are no more
+        private int next;
+        
+        MatchIterator(String text) {
+            this.text = text;
+            this.finder = finderFor(text.length());
+            this.next = finder.indexOf(text, 0, text.length());
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+        
+        @Override
+        public int nextInt() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            int current = next;
+            next = current < text.length() ? finder.indexOf(text, current + 1, text.length()) : -1;
+            return current;
+        }
+    }
+    
+    private static final class Counter implements IntConsumer {
+        
+        int count;
+        
+        @Override
+        public void accept(int offset) {
+            count++;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "CompiledPattern['" + pattern + "']";
+    }
+}
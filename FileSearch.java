@@ -0,0 +1,81 @@
+/**
+ * Memory-mapped file search
+ * =========================
+ * Searches a file without decoding it into a String. The file is mapped
+ * with FileChannel.map one window at a time and matched on the raw bytes,
+ * so heap usage does not depend on the file size. Offsets are byte
+ * offsets from the start of the file.
+ * 
+ * Like the chunks of ParallelSearch, each window reports the matches that
+ * START inside it and maps pattern.length - 1 extra bytes, so a match that
+ * straddles two windows is found exactly once.
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+public final class FileSearch {
+    
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+    
+    private final int windowSize;
+    
+    public FileSearch() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+    
+    public FileSearch(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+    
+    /**
+     * Searches for the UTF-8 encoding of the pattern.
+     */
+    public long[] search(Path file, String pattern) throws IOException {
+        return search(file, pattern.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public long[] search(Path file, byte[] pattern) throws IOException {
+        LongStream.Builder offsets = LongStream.builder();
+        search(file, pattern, offsets);
+        return offsets.build().toArray();
+    }
+    
+    /**
+     * Streams every byte offset to the sink, in increasing order. Nothing
+     * is collected, so memory stays constant however many matches there are.
+     */
+    public void search(Path file, byte[] pattern, LongConsumer sink) throws IOException {
+        ByteSearch finder = new ByteSearch(pattern);
+        int m = pattern.length;
+        if ((long) windowSize + m > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Window size plus pattern length must fit in an int");
+        }
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            do {
+                long end = Math.min(position + windowSize, size);
+                // The last window also owns offset size, where an empty pattern matches
+                long mapEnd = end == size ? size : Math.min(end + m - 1, size);
+                int length = (int) (mapEnd - position);
+                
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                long base = position;
+                finder.findAll(window, 0, length, i -> sink.accept(base + i));
+                
+                position = end;
+            } while (position < size);
+        }
+    }
+}
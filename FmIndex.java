@@ -0,0 +1,331 @@
+/**
+ * Compressed full-text index (FM-index)
+ * =====================================
+ * Stores the Burrows-Wheeler transform of the text in a wavelet matrix
+ * (one rank bit vector per bit of the symbol code), so it takes about
+ * log2(alphabet) bits per character instead of the 4 bytes per character
+ * of a suffix array. The text itself is not kept.
+ * 
+ * count() is a backward search: one pair of rank queries per pattern
+ * character, O(m log alphabet), independent of the text length.
+ * locate() walks the LF mapping back to the nearest sampled suffix
+ * array entry. A sampling rate of k stores n / k positions and takes at
+ * most k - 1 steps per occurrence, so k trades memory for speed.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public final class FmIndex {
+    
+    public static final int DEFAULT_SAMPLING_RATE = 32;
+    
+    // Rows of the BWT matrix: one per suffix plus the sentinel suffix
+    private final int rows;
+    
+    // Characters present in the text, sorted; a character's code is its
+    // index here plus 1, code 0 being the sentinel
+    private final char[] alphabet;
+    
+    // Number of symbols smaller than each code
+    private final int[] counts;
+    
+    // Wavelet matrix over the BWT codes
+    private final RankBitVector[] levels;
+    private final int[] zeros;
+    
+    // Where each code's run starts after the last level
+    private final int[] bottomStart;
+    
+    // Rows whose suffix position is a multiple of the rate, and those positions
+    private final int samplingRate;
+    private final RankBitVector sampledRows;
+    private final int[] samples;
+    
+    private final long buildTimeNanos;
+    
+    private FmIndex(int rows, char[] alphabet, int[] counts, RankBitVector[] levels, int[] zeros,
+                    int[] bottomStart, int samplingRate, RankBitVector sampledRows, int[] samples,
+                    long buildTimeNanos) {
+        this.rows = rows;
+        this.alphabet = alphabet;
+        this.counts = counts;
+        this.levels = levels;
+        this.zeros = zeros;
+        this.bottomStart = bottomStart;
+        this.samplingRate = samplingRate;
+        this.sampledRows = sampledRows;
+        this.samples = samples;
+        this.buildTimeNanos = buildTimeNanos;
+    }
+    
+    public static FmIndex build(String text) {
+        return build(text, DEFAULT_SAMPLING_RATE);
+    }
+    
+    /**
+     * Builds the index. The full suffix array is needed while building
+     * (about 30 bytes per character) and dropped afterwards.
+     */
+    public static FmIndex build(String text, int samplingRate) {
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException("Sampling rate must be positive: " + samplingRate);
+        }
+        long start = System.nanoTime();
+        int n = text.length();
+        int rows = n + 1;
+        
+        int[] codeOf = new int[Character.MAX_VALUE + 1];
+        for (int i = 0; i < n; i++) {
+            codeOf[text.charAt(i)] = 1;
+        }
+        int sigma = 1;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (codeOf[c] != 0) {
+                codeOf[c] = sigma++;
+            }
+        }
+        char[] alphabet = new char[sigma - 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (codeOf[c] != 0) {
+                alphabet[codeOf[c] - 1] = (char) c;
+            }
+        }
+        
+        // Row 0 is the sentinel suffix, which sorts before every other one
+        int[] sa = SuffixSorter.suffixArray(text);
+        int[] bwt = new int[rows];
+        RankBitVector sampledRows = new RankBitVector(rows);
+        int[] samples = new int[n / samplingRate + 1];
+        int sampleCount = 0;
+        for (int row = 0; row < rows; row++) {
+            int position = row == 0 ? n : sa[row - 1];
+            bwt[row] = position == 0 ? 0 : codeOf[text.charAt(position - 1)];
+            if (position % samplingRate == 0) {
+                sampledRows.set(row);
+                samples[sampleCount++] = position;
+            }
+        }
+        sa = null;
+        sampledRows.seal();
+        
+        int[] counts = new int[sigma + 1];
+        for (int code : bwt) {
+            counts[code + 1]++;
+        }
+        for (int c = 1; c <= sigma; c++) {
+            counts[c] += counts[c - 1];
+        }
+        
+        // Wavelet matrix: at each level the rows are stably partitioned by
+        // one bit of the code, most significant bit first
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(sigma - 1));
+        RankBitVector[] levels = new RankBitVector[bits];
+        int[] zeros = new int[bits];
+        int[] next = new int[rows];
+        for (int level = 0; level < bits; level++) {
+            int shift = bits - 1 - level;
+            RankBitVector vector = new RankBitVector(rows);
+            int zeroCount = 0;
+            for (int row = 0; row < rows; row++) {
+                if (((bwt[row] >>> shift) & 1) != 0) {
+                    vector.set(row);
+                } else {
+                    zeroCount++;
+                }
+            }
+            levels[level] = vector.seal();
+            zeros[level] = zeroCount;
+            int z = 0;
+            int o = zeroCount;
+            for (int row = 0; row < rows; row++) {
+                if (((bwt[row] >>> shift) & 1) != 0) {
+                    next[o++] = bwt[row];
+                } else {
+                    next[z++] = bwt[row];
+                }
+            }
+            int[] swap = bwt;
+            bwt = next;
+            next = swap;
+        }
+        
+        FmIndex index = new FmIndex(rows, alphabet, counts, levels, zeros, null, samplingRate,
+            sampledRows, samples, 0);
+        int[] bottomStart = new int[sigma];
+        for (int c = 0; c < sigma; c++) {
+            bottomStart[c] = index.descend(c, 0);
+        }
+        return new FmIndex(rows, alphabet, counts, levels, zeros, bottomStart, samplingRate,
+            sampledRows, samples, System.nanoTime() - start);
+    }
+    
+    /**
+     * Length of the indexed text.
+     */
+    public int length() {
+        return rows - 1;
+    }
+    
+    public int samplingRate() {
+        return samplingRate;
+    }
+    
+    /**
+     * Number of (overlapping) occurrences, without touching the samples.
+     */
+    public int count(String pattern) {
+        long range = backwardSearch(pattern);
+        return (int) (range >>> 32) - (int) range;
+    }
+    
+    public boolean contains(String pattern) {
+        return count(pattern) > 0;
+    }
+    
+    /**
+     * Returns every occurrence in increasing order, the same offsets as
+     * PatternSearch.search on the indexed text.
+     */
+    public IntList locate(String pattern) {
+        long range = backwardSearch(pattern);
+        int first = (int) range;
+        int end = (int) (range >>> 32);
+        int[] offsets = new int[end - first];
+        for (int row = first; row < end; row++) {
+            offsets[row - first] = position(row);
+        }
+        Arrays.sort(offsets);
+        IntList matches = new IntList(offsets.length);
+        for (int offset : offsets) {
+            matches.add(offset);
+        }
+        return matches;
+    }
+    
+    /**
+     * Bytes used by the index: wavelet matrix, samples and small tables.
+     */
+    public long sizeInBytes() {
+        long bytes = sampledRows.sizeInBytes() + 4L * samples.length;
+        for (RankBitVector level : levels) {
+            bytes += level.sizeInBytes();
+        }
+        return bytes + 2L * alphabet.length + 4L * (counts.length + zeros.length + bottomStart.length);
+    }
+    
+    public long buildTimeNanos() {
+        return buildTimeNanos;
+    }
+    
+    // Returns the matching rows [first, end) packed as end << 32 | first
+    private long backwardSearch(String pattern) {
+        int first = 0;
+        int end = rows;
+        for (int i = pattern.length() - 1; i >= 0 && first < end; i--) {
+            int code = code(pattern.charAt(i));
+            if (code < 0) {
+                return 0;
+            }
+            first = counts[code] + descend(code, first) - bottomStart[code];
+            end = counts[code] + descend(code, end) - bottomStart[code];
+        }
+        if (first >= end) {
+            return 0;
+        }
+        return (long) end << 32 | first;
+    }
+    
+    // Follows position i down the wavelet matrix along the bits of code
+    private int descend(int code, int i) {
+        int bits = levels.length;
+        for (int level = 0; level < bits; level++) {
+            if (((code >>> (bits - 1 - level)) & 1) != 0) {
+                i = zeros[level] + levels[level].rank1(i);
+            } else {
+                i = levels[level].rank0(i);
+            }
+        }
+        return i;
+    }
+    
+    // Text position of the suffix in the given row
+    private int position(int row) {
+        int steps = 0;
+        while (!sampledRows.get(row)) {
+            row = lf(row);
+            steps++;
+        }
+        return samples[sampledRows.rank1(row)] + steps;
+    }
+    
+    // Row of the suffix one character before the one in the given row
+    private int lf(int row) {
+        int code = 0;
+        int i = row;
+        for (int level = 0; level < levels.length; level++) {
+            RankBitVector vector = levels[level];
+            code <<= 1;
+            if (vector.get(i)) {
+                code |= 1;
+                i = zeros[level] + vector.rank1(i);
+            } else {
+                i = vector.rank0(i);
+            }
+        }
+        return counts[code] + i - bottomStart[code];
+    }
+    
+    private int code(char c) {
+        int index = Arrays.binarySearch(alphabet, c);
+        return index < 0 ? -1 : index + 1;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("FmIndex[%d chars, alphabet %d, sampling %d, %.1f KB, built in %.1f ms]",
+            length(), alphabet.length, samplingRate, sizeInBytes() / 1024.0, buildTimeNanos / 1e6);
+    }
+    
+    /**
+     * Prints index size against text size, and count/locate latency, for
+     * a range of sampling rates.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 22;
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size);
+        String words = "the quick brown fox jumps over lazy dog pattern search index text ";
+        while (sb.length() < size) {
+            int start = random.nextInt(words.length() - 8);
+            sb.append(words, start, start + 1 + random.nextInt(7));
+        }
+        String text = sb.substring(0, size);
+        String[] queries = new String[256];
+        for (int q = 0; q < queries.length; q++) {
+            int start = random.nextInt(size - 8);
+            queries[q] = text.substring(start, start + 8);
+        }
+        
+        System.out.printf("Text: %d chars (%.1f MB as UTF-16)%n", size, 2.0 * size / (1 << 20));
+        System.out.printf("%8s %10s %9s %12s %14s%n", "sampling", "size MB", "of text", "count us", "locate us/occ");
+        for (int rate : new int[] {1, 4, 16, 64, 256}) {
+            FmIndex index = build(text, rate);
+            long countStart = System.nanoTime();
+            for (int round = 0; round < 20; round++) {
+                for (String query : queries) {
+                    index.count(query);
+                }
+            }
+            double countMicros = (System.nanoTime() - countStart) / 1e3 / (20.0 * queries.length);
+            long locateStart = System.nanoTime();
+            long located = 0;
+            for (String query : queries) {
+                located += index.locate(query).size();
+            }
+            double locateMicros = (System.nanoTime() - locateStart) / 1e3 / Math.max(1, located);
+            System.out.printf("%8d %10.2f %8.1f%% %12.2f %14.2f%n", rate, index.sizeInBytes() / (1024.0 * 1024.0),
+                100.0 * index.sizeInBytes() / (2.0 * size), countMicros, locateMicros);
+        }
+    }
+}
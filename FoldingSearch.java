@@ -0,0 +1,103 @@
+/**
+ * Case-insensitive search
+ * =======================
+ * Knuth-Morris-Pratt over case-folded characters. The pattern is folded
+ * once up front; text characters are folded as they are read, so the text
+ * is never copied and offsets are positions in the original text. The
+ * pattern must be non-empty.
+ */
+
+import java.util.function.IntConsumer;
+
+final class FoldingSearch implements SearchAlgorithm.Finder {
+    
+    private final CaseMode caseMode;
+    private final char[] folded;
+    private final int[] failure;
+    
+    FoldingSearch(String pattern, CaseMode caseMode) {
+        this.caseMode = caseMode;
+        folded = new char[pattern.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = caseMode.foldedCharAt(pattern, i);
+        }
+        failure = KmpSearch.buildFailure(new String(folded));
+    }
+    
+    @Override
+    public int patternLength() {
+        return folded.length;
+    }
+    
+    @Override
+    public int indexOf(String text, int from, int to) {
+        return scan(text, from, to, null);
+    }
+    
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink) {
+        scan(text, from, to, sink);
+    }
+    
+    /**
+     * Returns the first match when sink is null, otherwise reports every
+     * match and returns -1.
+     */
+    private int scan(String text, int from, int to, IntConsumer sink) {
+        int m = folded.length;
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            char c = caseMode.foldedCharAt(text, i);
+            while (k > 0 && c != folded[k]) {
+                k = failure[k - 1];
+            }
+            if (c == folded[k]) {
+                k++;
+            }
+            if (k == m) {
+                if (sink == null) {
+                    return i - m + 1;
+                }
+                sink.accept(i - m + 1);
+                k = failure[k - 1];
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Counting copy of scan(), counted the same way as in KmpSearch.
+     */
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        int m = folded.length;
+        metrics.charsScanned += Math.max(0, to - from);
+        long comparisons = 0;
+        long windows = 0;
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            char c = caseMode.foldedCharAt(text, i);
+            while (k > 0 && c != folded[k]) {
+                k = failure[k - 1];
+                comparisons++;
+                windows++;
+            }
+            comparisons++;
+            if (k == 0) {
+                windows++;
+            }
+            if (c == folded[k]) {
+                k++;
+            }
+            if (k == m) {
+                metrics.matches++;
+                sink.accept(i - m + 1);
+                k = failure[k - 1];
+            }
+        }
+        metrics.comparisons += comparisons;
+        metrics.windows += windows;
+        // The pattern is aligned at i - k, so it moved from "from" to "to - k"
+        metrics.shifts += Math.max(0, to - k - from);
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Boyer-Moore-Horspool search
+ * ===========================
+ * Compares the last character of the window first and, on a mismatch,
+ * shifts by the distance from that character's last occurrence in the
+ * pattern to the pattern's end. Sublinear on large alphabets, O(n x m)
+ * in the worst case. The pattern must be non-empty.
+ */
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+final class HorspoolSearch implements SearchAlgorithm.Finder {
+    
+    // Shift table indexed by the low byte of a char. Characters sharing a
+    // bucket get the smallest shift of any of them, which is always safe.
+    private static final int TABLE_SIZE = 256;
+    
+    private final String pattern;
+    private final int[] shift;
+    
+    HorspoolSearch(String pattern) {
+        this.pattern = pattern;
+        int m = pattern.length();
+        shift = new int[TABLE_SIZE];
+        Arrays.fill(shift, m);
+        for (int j = 0; j < m - 1; j++) {
+            shift[pattern.charAt(j) & 0xFF] = m - 1 - j;
+        }
+    }
+    
+    @Override
+    public int patternLength() {
+        return pattern.length();
+    }
+    
+    @Override
+    public int indexOf(String text, int from, int to) {
+        int m = pattern.length();
+        char last = pattern.charAt(m - 1);
+        int limit = to - m;
+        int i = from;
+        while (i <= limit) {
+            char c = text.charAt(i + m - 1);
+            if (c == last) {
+                int j = m - 2;
+                while (j >= 0 && text.charAt(i + j) == pattern.charAt(j)) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[c & 0xFF];
+        }
+        return -1;
+    }
+    
+    /**
+     * Counting copy of the search loop. Unlike the plain findAll, which
+     * restarts one position after each match, it shifts by the table after
+     * a match too, as the classic algorithm does.
+     */
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        int m = pattern.length();
+        metrics.charsScanned += Math.max(0, to - from);
+        long comparisons = 0;
+        long windows = 0;
+        long shifts = 0;
+        char last = pattern.charAt(m - 1);
+        int limit = to - m;
+        int i = from;
+        while (i <= limit) {
+            char c = text.charAt(i + m - 1);
+            windows++;
+            comparisons++;
+            if (c == last) {
+                int j = m - 2;
+                while (j >= 0 && text.charAt(i + j) == pattern.charAt(j)) {
+                    j--;
+                }
+                // Equal characters from m - 2 down to j + 1, plus the mismatch
+                comparisons += j >= 0 ? m - 1 - j : m - 1;
+                if (j < 0) {
+                    metrics.matches++;
+                    sink.accept(i);
+                }
+            }
+            i += shift[c & 0xFF];
+            shifts += shift[c & 0xFF];
+        }
+        metrics.comparisons += comparisons;
+        metrics.windows += windows;
+        metrics.shifts += shifts;
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Growable buffer of primitive int values
+ * =======================================
+ * Used by the search engine to collect match offsets without boxing
+ * every position into an Integer.
+ */
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+public final class IntList implements IntConsumer {
+    
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    private int[] data;
+    private int size;
+    
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    public IntList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+        data = new int[Math.max(initialCapacity, 1)];
+    }
+    
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, grow(data.length));
+        }
+        data[size++] = value;
+    }
+    
+    @Override
+    public void accept(int value) {
+        add(value);
+    }
+    
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return data[index];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+    
+    /**
+     * Read-only List view over the buffer. Values are boxed only when read,
+     * so callers that still expect List<Integer> pay nothing up front.
+     */
+    public List<Integer> asList() {
+        return new ListView();
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(data[i]);
+        }
+        return sb.append(']').toString();
+    }
+    
+    private static int grow(int capacity) {
+        int newCapacity = capacity + (capacity >> 1) + 1;
+        if (newCapacity < 0 || newCapacity > Integer.MAX_VALUE - 8) {
+            if (capacity == Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("IntList is full");
+            }
+            newCapacity = Integer.MAX_VALUE - 8;
+        }
+        return newCapacity;
+    }
+    
+    private final class ListView extends AbstractList<Integer> implements RandomAccess {
+        
+        @Override
+        public Integer get(int index) {
+            return IntList.this.get(index);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
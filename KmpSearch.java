@@ -0,0 +1,119 @@
+/**
+ * Knuth-Morris-Pratt search
+ * =========================
+ * Never moves backwards in the text: after a mismatch (or a match) the
+ * failure function tells how much of the pattern is already matched.
+ * O(n + m) time, O(m) extra space. The pattern must be non-empty.
+ */
+
+import java.util.function.IntConsumer;
+
+final class KmpSearch implements SearchAlgorithm.Finder {
+    
+    private final String pattern;
+    private final int[] failure;
+    
+    KmpSearch(String pattern) {
+        this.pattern = pattern;
+        this.failure = buildFailure(pattern);
+    }
+    
+    /**
+     * failure[j] is the length of the longest proper prefix of
+     * pattern[0..j] that is also a suffix of it.
+     */
+    static int[] buildFailure(String pattern) {
+        int m = pattern.length();
+        int[] failure = new int[m];
+        int k = 0;
+        for (int j = 1; j < m; j++) {
+            while (k > 0 && pattern.charAt(j) != pattern.charAt(k)) {
+                k = failure[k - 1];
+            }
+            if (pattern.charAt(j) == pattern.charAt(k)) {
+                k++;
+            }
+            failure[j] = k;
+        }
+        return failure;
+    }
+    
+    @Override
+    public int patternLength() {
+        return pattern.length();
+    }
+    
+    @Override
+    public int indexOf(String text, int from, int to) {
+        return scan(text, from, to, null);
+    }
+    
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink) {
+        scan(text, from, to, sink);
+    }
+    
+    /**
+     * Returns the first match when sink is null, otherwise reports every
+     * match and returns -1. Keeping the state across matches is what makes
+     * overlapping matches linear.
+     */
+    private int scan(String text, int from, int to, IntConsumer sink) {
+        int m = pattern.length();
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            while (k > 0 && c != pattern.charAt(k)) {
+                k = failure[k - 1];
+            }
+            if (c == pattern.charAt(k)) {
+                k++;
+            }
+            if (k == m) {
+                if (sink == null) {
+                    return i - m + 1;
+                }
+                sink.accept(i - m + 1);
+                k = failure[k - 1];
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Counting copy of scan(). Every failure link followed moves the
+     * pattern to a new alignment, so it counts as a new window.
+     */
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        int m = pattern.length();
+        metrics.charsScanned += Math.max(0, to - from);
+        long comparisons = 0;
+        long windows = 0;
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            while (k > 0 && c != pattern.charAt(k)) {
+                k = failure[k - 1];
+                comparisons++;
+                windows++;
+            }
+            comparisons++;
+            if (k == 0) {
+                windows++;
+            }
+            if (c == pattern.charAt(k)) {
+                k++;
+            }
+            if (k == m) {
+                metrics.matches++;
+                sink.accept(i - m + 1);
+                k = failure[k - 1];
+            }
+        }
+        metrics.comparisons += comparisons;
+        metrics.windows += windows;
+        // The pattern is aligned at i - k, so it moved from "from" to "to - k"
+        metrics.shifts += Math.max(0, to - k - from);
+    }
+}
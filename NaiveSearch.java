@@ -0,0 +1,91 @@
+/**
+ * Naive sliding-window search
+ * ===========================
+ * Checks every position with a cheap first-character filter, comparing
+ * characters in place. O(n x m) in the worst case.
+ */
+
+import java.util.function.IntConsumer;
+
+final class NaiveSearch implements SearchAlgorithm.Finder {
+    
+    private final String pattern;
+    
+    NaiveSearch(String pattern) {
+        this.pattern = pattern;
+    }
+    
+    @Override
+    public int patternLength() {
+        return pattern.length();
+    }
+    
+    @Override
+    public int indexOf(String text, int from, int to) {
+        int m = pattern.length();
+        
+        // An empty pattern matches at every position, including the end
+        if (m == 0) {
+            return from <= to ? from : -1;
+        }
+        
+        char first = pattern.charAt(0);
+        int limit = to - m;
+        for (int i = from; i <= limit; i++) {
+            // Cheap first-character filter before checking the whole window
+            if (text.charAt(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < m && text.charAt(i + j) == pattern.charAt(j)) {
+                j++;
+            }
+            if (j == m) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Counting copy of the search loop. It is kept separate so that the
+     * plain loop above carries no counters at all.
+     */
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        int m = pattern.length();
+        metrics.charsScanned += Math.max(0, to - from);
+        if (m == 0) {
+            for (int i = from; i <= to; i++) {
+                metrics.matches++;
+                sink.accept(i);
+            }
+            return;
+        }
+        
+        long comparisons = 0;
+        long windows = 0;
+        char first = pattern.charAt(0);
+        int limit = to - m;
+        for (int i = from; i <= limit; i++) {
+            windows++;
+            comparisons++;
+            if (text.charAt(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < m && text.charAt(i + j) == pattern.charAt(j)) {
+                j++;
+            }
+            // j - 1 equal characters, plus the mismatch if there was one
+            comparisons += j < m ? j : j - 1;
+            if (j == m) {
+                metrics.matches++;
+                sink.accept(i);
+            }
+        }
+        metrics.comparisons += comparisons;
+        metrics.windows += windows;
+        metrics.shifts += windows;
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Parallel search over large texts
+ * ================================
+ * The text is cut into chunks that are searched concurrently. Each chunk
+ * owns the match positions that START inside it, and reads up to
+ * pattern.length() - 1 characters past its end, so a match straddling a
+ * seam is found exactly once. Chunk results are merged in text order.
+ * 
+ * Texts shorter than the threshold are searched sequentially.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+
+public final class ParallelSearch implements AutoCloseable {
+    
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+    
+    private final int threshold;
+    private final int chunkSize;
+    private final Executor executor;
+    
+    // Only set when this instance created the pool and must shut it down
+    private final ExecutorService ownedPool;
+    
+    /**
+     * Default thresholds on the common ForkJoinPool.
+     */
+    public ParallelSearch() {
+        this(DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Runs on a private ForkJoinPool with the given parallelism. Call
+     * close() to shut the pool down.
+     */
+    public ParallelSearch(int threshold, int chunkSize, int parallelism) {
+        this(threshold, chunkSize, new ForkJoinPool(parallelism), true);
+    }
+    
+    /**
+     * Runs on a caller-supplied executor, which is never shut down by this
+     * class. A ForkJoinPool is used with fork/join tasks, any other
+     * executor gets one task per chunk.
+     */
+    public ParallelSearch(int threshold, int chunkSize, Executor executor) {
+        this(threshold, chunkSize, executor, false);
+    }
+    
+    private ParallelSearch(int threshold, int chunkSize, Executor executor, boolean owned) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Negative threshold: " + threshold);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+        this.ownedPool = owned ? (ExecutorService) executor : null;
+    }
+    
+    public int threshold() {
+        return threshold;
+    }
+    
+    public int chunkSize() {
+        return chunkSize;
+    }
+    
+    public IntList searchAll(String text, String pattern) {
+        return searchAll(text, PatternSearch.cached(pattern, null, CaseMode.SENSITIVE));
+    }
+    
+    public IntList searchAll(String text, CompiledPattern pattern) {
+        int n = text.length();
+        SearchAlgorithm.Finder finder = pattern.finderFor(n);
+        if (n < threshold || n <= chunkSize) {
+            IntList matches = new IntList();
+            finder.findAll(text, 0, n, matches);
+            return matches;
+        }
+        
+        int chunks = (int) ((n + (long) chunkSize - 1) / chunkSize);
+        IntList[] results = new IntList[chunks];
+        
+        if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new ChunkTask(text, finder, results, 0, chunks));
+        } else {
+            List<FutureTask<Void>> futures = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                int chunk = c;
+                FutureTask<Void> future = new FutureTask<>(() -> {
+                    results[chunk] = searchChunk(text, finder, chunk);
+                    return null;
+                });
+                futures.add(future);
+                executor.execute(future);
+            }
+            for (FutureTask<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(f -> f.cancel(true));
+                    throw new IllegalStateException("Parallel search interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Parallel search failed", e.getCause());
+                }
+            }
+        }
+        
+        // Chunks own disjoint start ranges, so concatenating keeps order without duplicates
+        int total = 0;
+        for (IntList result : results) {
+            total += result.size();
+        }
+        IntList matches = new IntList(total);
+        for (IntList result : results) {
+            for (int i = 0; i < result.size(); i++) {
+                matches.add(result.get(i));
+            }
+        }
+        return matches;
+    }
+    
+    private IntList searchChunk(String text, SearchAlgorithm.Finder finder, int chunk) {
+        int start = chunk * chunkSize;
+        int end = (int) Math.min((long) start + chunkSize, text.length());
+        // Read past the chunk end so matches that start inside it can finish.
+        // The last chunk also owns position n, where an empty pattern matches.
+        int to = end == text.length()
+            ? end
+            : (int) Math.min((long) end + finder.patternLength() - 1, text.length());
+        IntList matches = new IntList();
+        finder.findAll(text, start, to, matches);
+        return matches;
+    }
+    
+    @Override
+    public void close() {
+        if (ownedPool != null) {
+            ownedPool.shutdown();
+        }
+    }
+    
+    /**
+     * Splits a range of chunks in half until a single chunk is left.
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final String text;
+        private final SearchAlgorithm.Finder finder;
+        private final IntList[] results;
+        private final int first;
+        private final int last;
+        
+        ChunkTask(String text, SearchAlgorithm.Finder finder, IntList[] results, int first, int last) {
+            this.text = text;
+            this.finder = finder;
+            this.results = results;
+            this.first = first;
+            this.last = last;
+        }
+        
+        @Override
+        protected void compute() {
+            if (last - first == 1) {
+                results[first] = searchChunk(text, finder, first);
+                return;
+            }
+            int mid = (first + last) >>> 1;
+            invokeAll(new ChunkTask(text, finder, results, first, mid),
+                      new ChunkTask(text, finder, results, mid, last));
+        }
+    }
+}
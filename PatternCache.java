@@ -0,0 +1,93 @@
+/**
+ * Bounded LRU cache of compiled patterns
+ * ======================================
+ * Keyed by the pattern text plus the search options, so that repeated
+ * calls to the static PatternSearch.search methods skip preprocessing.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+final class PatternCache {
+    
+    private final int maxEntries;
+    private final LinkedHashMap<Key, CompiledPattern> entries;
+    
+    PatternCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Negative cache size: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        // Access order turns the map into an LRU list
+        this.entries = new LinkedHashMap<Key, CompiledPattern>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledPattern> eldest) {
+                return size() > PatternCache.this.maxEntries;
+            }
+        };
+    }
+    
+    /**
+     * Returns the cached compiled pattern, compiling it on a miss.
+     * Compilation runs outside the lock; if two threads race, the first
+     * one to finish wins and both get equivalent objects.
+     */
+    CompiledPattern get(String pattern, SearchAlgorithm algorithm, CaseMode caseMode) {
+        Key key = new Key(pattern, algorithm, caseMode);
+        synchronized (entries) {
+            CompiledPattern cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        CompiledPattern compiled = new CompiledPattern(pattern, algorithm, caseMode);
+        synchronized (entries) {
+            CompiledPattern raced = entries.putIfAbsent(key, compiled);
+            return raced != null ? raced : compiled;
+        }
+    }
+    
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+    
+    private static final class Key {
+        private final String pattern;
+        private final SearchAlgorithm algorithm;
+        private final CaseMode caseMode;
+        
+        Key(String pattern, SearchAlgorithm algorithm, CaseMode caseMode) {
+            this.pattern = pattern;
+            this.algorithm = algorithm;
+            this.caseMode = caseMode;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return pattern.equals(other.pattern)
+                && Objects.equals(algorithm, other.algorithm)
+                && caseMode == other.caseMode;
+        }
+        
+        @Override
+        public int hashCode() {
+            return (pattern.hashCode() * 31 + Objects.hashCode(algorithm)) * 31 + Objects.hashCode(caseMode);
+        }
+    }
+}
@@ -1,19 +1,253 @@
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
 
 public class PatternSearch {
     
+    // Compiled patterns reused by the static search methods
+    private static final PatternCache CACHE =
+        new PatternCache(Integer.getInteger("patternsearch.cache.size", 512));
+    
+    private static final ParallelSearch DEFAULT_PARALLEL = new ParallelSearch();
+    
     public static List<Integer> search(String text, String pattern) {
-        List<Integer> matches = new ArrayList<>();
-        for (int i = 0; i <= text.length() - pattern.length(); i++) {
-            if (text.substring(i, i + pattern.length()).equals(pattern)) {
-                matches.add(i);
-            }
-        }
+        return searchAll(text, pattern).asList();
+    }
+    
+    public static List<Integer> search(String text, String pattern, SearchAlgorithm algorithm) {
+        return searchAll(text, pattern, algorithm).asList();
+    }
+    
+    public static List<Integer> search(String text, String pattern, CaseMode caseMode) {
+        return searchAll(text, pattern, caseMode).asList();
+    }
+    
+    /**
+     * Finds every (overlapping) occurrence of pattern in text.
+     * Characters are compared in place, so no String is allocated per
+     * window, and offsets are collected in a primitive IntList.
+     * The algorithm is picked by Algorithm.select.
+     */
+    public static IntList searchAll(String text, String pattern) {
+        return CACHE.get(pattern, null, CaseMode.SENSITIVE).searchAll(text);
+    }
+    
+    /**
+     * Same as searchAll(text, pattern), but forces a specific algorithm.
+     */
+    public static IntList searchAll(String text, String pattern, SearchAlgorithm algorithm) {
+        return CACHE.get(pattern, algorithm, CaseMode.SENSITIVE).searchAll(text);
+    }
+    
+    /**
+     * Same as searchAll(text, pattern), with the given case handling.
+     * Case is folded per character while comparing, so the text is not
+     * copied and offsets refer to the original text.
+     */
+    public static IntList searchAll(String text, String pattern, CaseMode caseMode) {
+        return CACHE.get(pattern, null, caseMode).searchAll(text);
+    }
+    
+    public static boolean contains(String text, String pattern) {
+        return CACHE.get(pattern, null, CaseMode.SENSITIVE).contains(text);
+    }
+    
+    /**
+     * Returns the first occurrence at or after from, or -1.
+     */
+    public static int indexOf(String text, String pattern, int from) {
+        return CACHE.get(pattern, null, CaseMode.SENSITIVE).indexOf(text, from);
+    }
+    
+    /**
+     * Counts the occurrences without building a list of them.
+     */
+    public static int count(String text, String pattern) {
+        return CACHE.get(pattern, null, CaseMode.SENSITIVE).count(text);
+    }
+    
+    /**
+     * Returns at most the first k occurrences, scanning no further.
+     */
+    public static IntList findFirst(String text, String pattern, int k) {
+        return CACHE.get(pattern, null, CaseMode.SENSITIVE).findFirst(text, k);
+    }
+    
+    /**
+     * Occurrences computed on demand; see CompiledPattern.matches.
+     */
+    public static PrimitiveIterator.OfInt matches(String text, String pattern) {
+        return CACHE.get(pattern, null, CaseMode.SENSITIVE).matches(text);
+    }
+    
+    public static IntStream stream(String text, String pattern) {
+        return CACHE.get(pattern, null, CaseMode.SENSITIVE).stream(text);
+    }
+    
+    /**
+     * Searches any CharSequence (StringBuilder, CharBuffer, ...) without
+     * turning it into a String first. See CharSearch.
+     */
+    public static IntList searchAll(CharSequence text, String pattern) {
+        IntList matches = new IntList();
+        CACHE.get(pattern, null, CaseMode.SENSITIVE).charSearch().findAll(text, 0, text.length(), matches);
+        return matches;
+    }
+    
+    /**
+     * Searches the chars between the buffer's position and limit, which
+     * are left unchanged. Offsets are indices into the buffer, as for the
+     * ByteBuffer overload; as a CharSequence they would count from the
+     * position instead.
+     */
+    public static IntList searchAll(CharBuffer buffer, String pattern) {
+        IntList matches = new IntList();
+        CACHE.get(pattern, null, CaseMode.SENSITIVE).charSearch()
+            .findAll(buffer, buffer.position(), buffer.limit(), matches);
+        return matches;
+    }
+    
+    /**
+     * Searches text[offset, offset + length). Offsets are indices into the
+     * array.
+     */
+    public static IntList searchAll(char[] text, int offset, int length, String pattern) {
+        Objects.checkFromIndexSize(offset, length, text.length);
+        IntList matches = new IntList();
+        CACHE.get(pattern, null, CaseMode.SENSITIVE).charSearch().findAll(text, offset, offset + length, matches);
+        return matches;
+    }
+    
+    /**
+     * Searches raw bytes; offsets are byte offsets.
+     */
+    public static IntList searchAll(byte[] data, byte[] pattern) {
+        IntList matches = new IntList();
+        new ByteSearch(pattern).findAll(data, 0, data.length, matches);
         return matches;
     }
     
+    /**
+     * Searches the bytes between the buffer's position and limit, which
+     * are left unchanged. Offsets are indices into the buffer.
+     */
+    public static IntList searchAll(ByteBuffer buffer, byte[] pattern) {
+        IntList matches = new IntList();
+        new ByteSearch(pattern).findAll(buffer, buffer.position(), buffer.limit(), matches);
+        return matches;
+    }
+    
+    /**
+     * Returns the compiled pattern from the shared cache (algorithm may be
+     * null for automatic selection).
+     */
+    static CompiledPattern cached(String pattern, SearchAlgorithm algorithm, CaseMode caseMode) {
+        return CACHE.get(pattern, algorithm, caseMode);
+    }
+    
+    /**
+     * Preprocesses the pattern once so it can be searched for in many texts.
+     * The algorithm is picked per text by Algorithm.select.
+     */
+    public static CompiledPattern compile(String pattern) {
+        return new CompiledPattern(pattern, null, CaseMode.SENSITIVE);
+    }
+    
+    public static CompiledPattern compile(String pattern, SearchAlgorithm algorithm) {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm");
+        }
+        return new CompiledPattern(pattern, algorithm, CaseMode.SENSITIVE);
+    }
+    
+    public static CompiledPattern compile(String pattern, CaseMode caseMode) {
+        return new CompiledPattern(pattern, null, caseMode);
+    }
+    
+    /**
+     * Searches large texts on the common ForkJoinPool; texts below
+     * ParallelSearch.DEFAULT_THRESHOLD are searched sequentially.
+     */
+    public static IntList searchParallel(String text, String pattern) {
+        return DEFAULT_PARALLEL.searchAll(text, pattern);
+    }
+    
+    /**
+     * Searches a file for the UTF-8 bytes of the pattern through memory
+     * mapping and returns byte offsets.
+     */
+    public static long[] searchFile(Path file, String pattern) throws IOException {
+        return new FileSearch().search(file, pattern);
+    }
+    
+    /**
+     * Compiles a wildcard pattern (?, *, [a-z], (cat|dog)); see
+     * WildcardPattern. Reuse the result: its DFA is built as it searches.
+     */
+    public static WildcardPattern compileWildcard(String pattern) {
+        return WildcardPattern.compile(pattern);
+    }
+    
+    public static WildcardPattern compileWildcard(String pattern, CaseMode caseMode) {
+        return WildcardPattern.compile(pattern, caseMode);
+    }
+    
+    /**
+     * Start offsets of every match of a wildcard pattern, in O(n).
+     */
+    public static IntList searchWildcard(String text, String pattern) {
+        return WildcardPattern.compile(pattern).searchAll(text);
+    }
+    
+    /**
+     * Builds one Aho-Corasick automaton for all patterns, so they can be
+     * searched for in a single pass over the text.
+     */
+    public static AhoCorasick compileAll(String... patterns) {
+        return AhoCorasick.build(Arrays.asList(patterns));
+    }
+    
+    public static AhoCorasick compileAll(List<String> patterns) {
+        return AhoCorasick.build(patterns);
+    }
+    
+    /**
+     * Builds a suffix-array index of the text, for answering many queries
+     * against the same text in O(m log n) each. See SuffixArrayIndex.save
+     * and open for keeping it across restarts.
+     */
+    public static SuffixArrayIndex buildIndex(String text) {
+        return SuffixArrayIndex.build(text);
+    }
+    
+    /**
+     * Registers a listener that is told the cost of every search made
+     * through a CompiledPattern. Searches are only counted while at least
+     * one listener is registered.
+     */
+    public static void addListener(SearchListener listener) {
+        SearchListeners.add(listener);
+    }
+    
+    public static boolean removeListener(SearchListener listener) {
+        return SearchListeners.remove(listener);
+    }
+    
+    /**
+     * With arguments, runs the command-line search (see SearchCli);
+     * without, prints a few examples.
+     */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(SearchCli.run(args));
+        }
+        
         String text = "Hello World";
         String pattern = "World";
         
@@ -26,6 +260,10 @@ public class PatternSearch {
         System.out.println("\n'hello' in 'hello world hello': " + search("hello world hello", "hello"));
         System.out.println("'aaa' in 'aaaaaaaa': " + search("aaaaaaaa", "aaa"));
         System.out.println("'xyz' in 'abcdefgh': " + search("abcdefgh", "xyz"));
+        
+        // Several patterns in one pass: (pattern id, offset) pairs
+        AhoCorasick keywords = compileAll("he", "she", "his", "hers");
+        System.out.println("\n'he', 'she', 'his', 'hers' in 'ushers': " + keywords.findAll("ushers"));
+        System.out.println(keywords);
     }
 }
-
@@ -7,14 +7,16 @@
  * @version 1.0
  */
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -24,6 +26,7 @@ import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 import javafx.stage.Stage;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,11 +35,14 @@ public class PatternSearchGUI extends Application {
     // UI Components
     private TextField textField;
     private TextField patternField;
-    private TextArea outputArea;
+    private ListView<String> outputList;
     private Canvas visualCanvas;
+    private VBox outputBox;
     private Slider speedSlider;
     private CheckBox caseSensitiveCheck;
     private CheckBox highlightMatchCheck;
+    private CheckBox fastModeCheck;
+    private CheckBox wildcardCheck;
     private Button searchButton;
     private Button stopButton;
     private Label statusLabel;
@@ -45,8 +51,38 @@ public class PatternSearchGUI extends Application {
     private volatile boolean isSearching = false;
     private Task<Void> searchTask;
     
+    // Log lines kept in the output list; older lines are dropped
+    private static final int MAX_LOG_LINES = 5000;
+    
+    // Log entries applied per frame, so one frame never stalls the FX thread
+    private static final int MAX_LOG_ENTRIES_PER_FRAME = 500;
+    
+    // Updates from the search thread, drained once per frame by uiTimer
+    private final UiUpdateBuffer uiUpdates = new UiUpdateBuffer(1024);
+    private final StringBuilder partialLine = new StringBuilder();
+    private AnimationTimer uiTimer;
+    
+    // Fast mode searches the text in slices so Stop is honoured promptly,
+    // and pages the offsets instead of logging every one of them
+    private static final int FAST_SLICE_CHARS = 1 << 20;
+    private static final int OFFSETS_PER_PAGE = 100;
+    private IntList fastMatches = new IntList();
+    
+    // Built on first use, so none of them slow down the first frame
+    private SearchCanvasRenderer canvasRenderer;
+    private Pagination matchPages;
+    private Stage examplesStage;
+    
+    // Runs both kinds of search, on a virtual thread when the JVM has them
+    private SearchService searchService;
+    
+    // -Dpatternsearch.startup=report prints the time to the first frame;
+    // =exit also quits right after it (see StartupBenchmark)
+    private static final String STARTUP_PROPERTY = "patternsearch.startup";
+    
     @Override
     public void start(Stage primaryStage) {
+        long startNanos = System.nanoTime();
         primaryStage.setTitle("🔍 Pattern Search Algorithm - Interactive Learning Tool");
         
         // Main container
@@ -87,13 +123,71 @@ public class PatternSearchGUI extends Application {
         primaryStage.setScene(scene);
         primaryStage.show();
         
-        // Handle window close
-        primaryStage.setOnCloseRequest(e -> {
-            isSearching = false;
-            if (searchTask != null) {
-                searchTask.cancel();
+        // Apply pending updates from the search thread once per frame
+        uiTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                applyUiUpdates();
             }
-        });
+        };
+        uiTimer.start();
+        
+        // Handle window close
+        primaryStage.setOnCloseRequest(e -> shutdown());
+        
+        String startupMode = System.getProperty(STARTUP_PROPERTY);
+        if (startupMode != null) {
+            reportFirstFrame(scene, startNanos, "exit".equals(startupMode));
+        }
+    }
+    
+    private void shutdown() {
+        isSearching = false;
+        uiTimer.stop();
+        uiUpdates.close();
+        if (searchService != null) {
+            searchService.close();
+        }
+        if (searchTask != null) {
+            searchTask.cancel();
+        }
+    }
+    
+    /**
+     * Prints how long after JVM start, and after start() was entered, the
+     * first frame was shown.
+     */
+    private void reportFirstFrame(Scene scene, long startNanos, boolean exit) {
+        Runnable[] firstPulse = new Runnable[1];
+        firstPulse[0] = () -> {
+            scene.removePostLayoutPulseListener(firstPulse[0]);
+            // Runs once the pulse that renders the first frame is over
+            Platform.runLater(() -> {
+                long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                System.out.printf("Startup: first frame %d ms after JVM start, %.1f ms in start()%n",
+                    sinceJvmStart, (System.nanoTime() - startNanos) / 1e6);
+                System.out.flush();
+                if (exit) {
+                    shutdown();
+                    Platform.exit();
+                }
+            });
+        };
+        scene.addPostLayoutPulseListener(firstPulse[0]);
+    }
+    
+    private SearchService searchService() {
+        if (searchService == null) {
+            searchService = new SearchService();
+        }
+        return searchService;
+    }
+    
+    private SearchCanvasRenderer canvasRenderer() {
+        if (canvasRenderer == null) {
+            canvasRenderer = new SearchCanvasRenderer(visualCanvas);
+        }
+        return canvasRenderer;
     }
     
     private VBox createTitleSection() {
@@ -142,6 +236,10 @@ public class PatternSearchGUI extends Application {
         caseSensitiveCheck.setSelected(true);
         highlightMatchCheck = new CheckBox("Highlight Matches");
         highlightMatchCheck.setSelected(true);
+        fastModeCheck = new CheckBox("⚡ Benchmark / Fast mode");
+        fastModeCheck.setTooltip(new Tooltip("Run the search engine without animation and report timing"));
+        wildcardCheck = new CheckBox("Wildcards");
+        wildcardCheck.setTooltip(new Tooltip("? = any char, * = any run, [a-z] = class, (cat|dog) = alternatives"));
         
         // Speed control
         HBox speedBox = new HBox(10);
@@ -154,7 +252,8 @@ public class PatternSearchGUI extends Application {
         speedSlider.setPrefWidth(200);
         speedBox.getChildren().addAll(speedLabel, speedSlider);
         
-        optionsBox.getChildren().addAll(caseSensitiveCheck, highlightMatchCheck, speedBox);
+        optionsBox.getChildren().addAll(caseSensitiveCheck, highlightMatchCheck, fastModeCheck, wildcardCheck,
+            speedBox);
         
         // Buttons
         HBox buttonBox = new HBox(10);
@@ -215,7 +314,7 @@ public class PatternSearchGUI extends Application {
     }
     
     private VBox createOutputSection() {
-        VBox outputBox = new VBox(10);
+        outputBox = new VBox(10);
         outputBox.setStyle("-fx-background-color: white; -fx-padding: 15; " +
                           "-fx-border-color: #bdc3c7; -fx-border-radius: 5; " +
                           "-fx-background-radius: 5;");
@@ -223,19 +322,56 @@ public class PatternSearchGUI extends Application {
         Label outputLabel = new Label("📊 Search Process & Results");
         outputLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
         
-        outputArea = new TextArea();
-        outputArea.setEditable(false);
-        outputArea.setWrapText(true);
-        outputArea.setFont(Font.font("Courier New", 13));
-        outputArea.setPrefRowCount(15);
-        outputArea.setStyle("-fx-border-color: #bdc3c7; -fx-border-width: 2;");
+        // A ListView only creates cells for the visible lines, so a long
+        // log costs no more to render than a short one
+        outputList = new ListView<>();
+        outputList.setFixedCellSize(20);
+        outputList.setPrefHeight(15 * 20);
+        outputList.setStyle("-fx-font-family: 'Courier New'; -fx-font-size: 13px; " +
+                           "-fx-border-color: #bdc3c7; -fx-border-width: 2;");
         
-        outputBox.getChildren().addAll(outputLabel, outputArea);
-        VBox.setVgrow(outputArea, Priority.ALWAYS);
+        // The offsets found in fast mode go below, in a Pagination added by
+        // showMatchPages the first time there are any
+        outputBox.getChildren().addAll(outputLabel, outputList);
+        VBox.setVgrow(outputList, Priority.ALWAYS);
         
         return outputBox;
     }
     
+    private Node createMatchPage(int pageIndex) {
+        int start = pageIndex * OFFSETS_PER_PAGE;
+        int end = Math.min(start + OFFSETS_PER_PAGE, fastMatches.size());
+        StringBuilder offsets = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                offsets.append(", ");
+            }
+            offsets.append(fastMatches.get(i));
+        }
+        
+        Label pageLabel = new Label(offsets.toString());
+        pageLabel.setWrapText(true);
+        pageLabel.setFont(Font.font("Courier New", 13));
+        return pageLabel;
+    }
+    
+    private void showMatchPages(IntList matches) {
+        fastMatches = matches;
+        boolean any = !matches.isEmpty();
+        if (matchPages == null) {
+            if (!any) {
+                return;
+            }
+            matchPages = new Pagination(1, 0);
+            outputBox.getChildren().add(matchPages);
+        }
+        matchPages.setPageCount(Math.max(1, (matches.size() + OFFSETS_PER_PAGE - 1) / OFFSETS_PER_PAGE));
+        matchPages.setCurrentPageIndex(0);
+        matchPages.setPageFactory(this::createMatchPage);
+        matchPages.setVisible(any);
+        matchPages.setManaged(any);
+    }
+    
     private HBox createStatusBar() {
         HBox statusBar = new HBox();
         statusBar.setStyle("-fx-background-color: #34495e; -fx-padding: 10;");
@@ -250,103 +386,72 @@ public class PatternSearchGUI extends Application {
     
     private void visualizeStep(String text, String pattern, int position, 
                                int comparingIndex, Boolean isMatch) {
-        GraphicsContext gc = visualCanvas.getGraphicsContext2D();
-        gc.clearRect(0, 0, visualCanvas.getWidth(), visualCanvas.getHeight());
-        
-        if (text.isEmpty() || pattern.isEmpty()) {
-            return;
+        canvasRenderer().render(text, pattern, position, comparingIndex, isMatch);
+    }
+    
+    private void writeOutput(String text) {
+        uiUpdates.log(text);
+    }
+    
+    private void updateStatus(String text) {
+        uiUpdates.status(text);
+    }
+    
+    private void showStep(String text, String pattern, int position, int comparingIndex, Boolean isMatch) {
+        uiUpdates.frame(new UiUpdateBuffer.Frame(text, pattern, position, comparingIndex, isMatch));
+    }
+    
+    /**
+     * Runs on the FX thread once per frame: draws only the latest frame,
+     * appends the queued log text and shows the latest status.
+     */
+    private void applyUiUpdates() {
+        UiUpdateBuffer.Frame frame = uiUpdates.takeFrame();
+        if (frame != null) {
+            visualizeStep(frame.text, frame.pattern, frame.position, frame.comparingIndex, frame.isMatch);
         }
         
-        double charWidth = 45;
-        double charHeight = 45;
-        double startX = 50;
-        double startY = 70;
-        
-        // Draw text characters
-        for (int i = 0; i < text.length(); i++) {
-            double x = startX + i * charWidth;
-            
-            // Determine color
-            Color boxColor;
-            if (position <= i && i < position + pattern.length()) {
-                if (comparingIndex >= 0 && i == position + comparingIndex) {
-                    if (isMatch != null) {
-                        boxColor = isMatch ? Color.web("#27ae60") : Color.web("#e74c3c");
-                    } else {
-                        boxColor = Color.web("#f39c12");
-                    }
-                } else {
-                    boxColor = Color.web("#3498db");
-                }
-            } else {
-                boxColor = Color.web("#95a5a6");
+        List<String> lines = new ArrayList<>();
+        uiUpdates.drainLog(text -> splitLines(text, lines), MAX_LOG_ENTRIES_PER_FRAME);
+        if (!lines.isEmpty()) {
+            ObservableList<String> items = outputList.getItems();
+            items.addAll(lines);
+            if (items.size() > MAX_LOG_LINES) {
+                items.remove(0, items.size() - MAX_LOG_LINES);
             }
-            
-            // Draw character box
-            gc.setFill(boxColor);
-            gc.fillRect(x, startY, charWidth - 2, charHeight);
-            gc.setStroke(Color.web("#2c3e50"));
-            gc.setLineWidth(2);
-            gc.strokeRect(x, startY, charWidth - 2, charHeight);
-            
-            // Draw character
-            gc.setFill(Color.WHITE);
-            gc.setFont(Font.font("Courier New", FontWeight.BOLD, 20));
-            String charStr = text.charAt(i) == ' ' ? "␣" : String.valueOf(text.charAt(i));
-            gc.fillText(charStr, x + charWidth / 2 - 10, startY + charHeight / 2 + 7);
-            
-            // Draw index
-            gc.setFill(Color.web("#7f8c8d"));
-            gc.setFont(Font.font("Arial", 12));
-            gc.fillText(String.valueOf(i), x + charWidth / 2 - 5, startY + charHeight + 15);
+            outputList.scrollTo(items.size() - 1);
         }
         
-        // Draw pattern indicator
-        if (position >= 0 && position < text.length()) {
-            double windowX = startX + position * charWidth;
-            double windowY = startY - 25;
-            
-            String patternText = "Pattern: '" + pattern + "'";
-            
-            // Background for pattern label
-            gc.setFill(Color.WHITE);
-            gc.setStroke(Color.web("#e74c3c"));
-            gc.setLineWidth(1);
-            gc.strokeRect(windowX - 2, windowY - 15, patternText.length() * 7 + 4, 18);
-            gc.fillRect(windowX - 2, windowY - 15, patternText.length() * 7 + 4, 18);
-            
-            // Pattern text
-            gc.setFill(Color.web("#e74c3c"));
-            gc.setFont(Font.font("Arial", FontWeight.BOLD, 13));
-            gc.fillText(patternText, windowX, windowY);
-            
-            // Draw arrow
-            double arrowX = windowX + (pattern.length() * charWidth) / 2 - 1;
-            gc.setStroke(Color.web("#e74c3c"));
-            gc.setLineWidth(2);
-            gc.strokeLine(arrowX, windowY + 3, arrowX, startY - 3);
-            
-            // Arrow head
-            gc.strokeLine(arrowX, startY - 3, arrowX - 5, startY - 8);
-            gc.strokeLine(arrowX, startY - 3, arrowX + 5, startY - 8);
+        String status = uiUpdates.takeStatus();
+        if (status != null) {
+            statusLabel.setText(status);
         }
     }
     
-    private void writeOutput(String text) {
-        Platform.runLater(() -> {
-            outputArea.appendText(text);
-            outputArea.setScrollTop(Double.MAX_VALUE);
-        });
-    }
-    
-    private void updateStatus(String text) {
-        Platform.runLater(() -> statusLabel.setText(text));
+    /**
+     * Log text arrives in pieces that may hold several lines or end
+     * mid-line; completed lines go to the list, the rest waits.
+     */
+    private void splitLines(String text, List<String> lines) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                lines.add(partialLine.toString());
+                partialLine.setLength(0);
+            } else {
+                partialLine.append(c);
+            }
+        }
     }
     
     private void clearOutput() {
-        outputArea.clear();
-        GraphicsContext gc = visualCanvas.getGraphicsContext2D();
-        gc.clearRect(0, 0, visualCanvas.getWidth(), visualCanvas.getHeight());
+        uiUpdates.clear();
+        partialLine.setLength(0);
+        outputList.getItems().clear();
+        showMatchPages(new IntList());
+        if (canvasRenderer != null) {
+            canvasRenderer.clear();
+        }
         updateStatus("Cleared");
     }
     
@@ -366,11 +471,21 @@ public class PatternSearchGUI extends Application {
         stopButton.setDisable(false);
         isSearching = true;
         
+        boolean fastMode = fastModeCheck.isSelected();
+        boolean wildcards = wildcardCheck.isSelected();
+        CaseMode caseMode = caseSensitiveCheck.isSelected() ? CaseMode.SENSITIVE : CaseMode.IGNORE_UNICODE;
+        
         // Create background task
         searchTask = new Task<Void>() {
             @Override
             protected Void call() throws Exception {
-                findPatternAnimated(text, pattern);
+                if (wildcards) {
+                    findPatternWildcard(text, pattern, caseMode);
+                } else if (fastMode) {
+                    findPatternFast(text, pattern, caseMode);
+                } else {
+                    findPatternAnimated(text, pattern);
+                }
                 return null;
             }
         };
@@ -391,9 +506,7 @@ public class PatternSearchGUI extends Application {
             stopButton.setDisable(true);
         });
         
-        Thread thread = new Thread(searchTask);
-        thread.setDaemon(true);
-        thread.start();
+        searchService().execute(searchTask);
     }
     
     private void stopSearch() {
@@ -424,18 +537,17 @@ public class PatternSearchGUI extends Application {
             return;
         }
         
-        // Apply case sensitivity
-        String searchText = text;
-        String searchPattern = pattern;
+        // Apply case sensitivity: characters are folded while comparing,
+        // so positions always refer to the text as typed
+        CaseMode caseMode = CaseMode.SENSITIVE;
         if (!caseSensitiveCheck.isSelected()) {
-            searchText = text.toLowerCase();
-            searchPattern = pattern.toLowerCase();
+            caseMode = CaseMode.IGNORE_UNICODE;
             writeOutput("🔤 Case-insensitive mode enabled\n");
         }
         
         // Make final copies for use in lambda expressions
-        final String finalSearchText = searchText;
-        final String finalSearchPattern = searchPattern;
+        final String finalSearchText = text;
+        final String finalSearchPattern = pattern;
         
         writeOutput("\n============================================================\n");
         writeOutput(String.format("🔍 Searching for '%s' in '%s'\n", pattern, text));
@@ -449,8 +561,7 @@ public class PatternSearchGUI extends Application {
         for (int textPosition = 0; textPosition < searchLimit && isSearching; textPosition++) {
             writeOutput(String.format("\n📍 Position %d:\n", textPosition));
             
-            final int pos = textPosition;
-            Platform.runLater(() -> visualizeStep(finalSearchText, finalSearchPattern, pos, -1, null));
+            showStep(finalSearchText, finalSearchPattern, textPosition, -1, null);
             sleep(speedSlider.getValue() * 300);
             
             boolean isMatch = true;
@@ -461,11 +572,11 @@ public class PatternSearchGUI extends Application {
                 char textChar = finalSearchText.charAt(currentTextIndex);
                 char patternChar = finalSearchPattern.charAt(patternPosition);
                 
-                boolean matchesChar = textChar == patternChar;
+                // Folds a surrogate half together with its pair, like the fast mode
+                boolean matchesChar = caseMode.foldedCharAt(finalSearchText, currentTextIndex)
+                    == caseMode.foldedCharAt(finalSearchPattern, patternPosition);
                 
-                final int pp = patternPosition;
-                final boolean match = matchesChar;
-                Platform.runLater(() -> visualizeStep(finalSearchText, finalSearchPattern, pos, pp, match));
+                showStep(finalSearchText, finalSearchPattern, textPosition, patternPosition, matchesChar);
                 
                 String symbol = matchesChar ? "✓" : "✗";
                 writeOutput(String.format("   Comparing: text[%d]='%c' ↔ pattern[%d]='%c' %s\n",
@@ -483,9 +594,8 @@ public class PatternSearchGUI extends Application {
             if (isMatch && isSearching) {
                 matches.add(textPosition);
                 writeOutput(String.format("   ✅ MATCH FOUND at position %d!\n", textPosition));
-                final int finalPos = textPosition;
-                Platform.runLater(() -> visualizeStep(finalSearchText, finalSearchPattern, 
-                    finalPos, finalSearchPattern.length() - 1, true));
+                showStep(finalSearchText, finalSearchPattern,
+                    textPosition, finalSearchPattern.length() - 1, true);
                 sleep(speedSlider.getValue() * 1000);
             }
         }
@@ -505,6 +615,105 @@ public class PatternSearchGUI extends Application {
         isSearching = false;
     }
     
+    private void findPatternFast(String text, String pattern, CaseMode caseMode) {
+        if (pattern.isEmpty()) {
+            writeOutput("⚠️ Pattern is empty!\n");
+            isSearching = false;
+            return;
+        }
+        
+        CompiledPattern compiled = PatternSearch.compile(pattern, caseMode);
+        IntList matches = new IntList();
+        SearchMetrics metrics = new SearchMetrics();
+        int n = text.length();
+        int m = pattern.length();
+        
+        writeOutput("\n============================================================\n");
+        writeOutput(String.format("⚡ Fast search for '%s' (%s)\n",
+            pattern.length() > 60 ? pattern.substring(0, 60) + "..." : pattern, caseMode));
+        writeOutput(String.format("📏 Text length: %d, Pattern length: %d\n", n, m));
+        writeOutput("============================================================\n");
+        
+        // Each slice extends m - 1 characters past its end so matches
+        // straddling the seam are found exactly once
+        long startTime = System.nanoTime();
+        int start = 0;
+        while (start < n && isSearching) {
+            int end = (int) Math.min((long) start + FAST_SLICE_CHARS, n);
+            int to = end == n ? n : Math.min(end + m - 1, n);
+            compiled.findAll(text, start, to, matches, metrics);
+            start = end;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        
+        if (!isSearching) {
+            writeOutput(String.format("⏹ Stopped after %d of %d characters, %d match(es) so far\n",
+                start, n, matches.size()));
+            return;
+        }
+        
+        double millis = elapsed / 1e6;
+        double megabytes = n / (1024.0 * 1024.0);
+        double throughput = elapsed == 0 ? 0 : megabytes / (elapsed / 1e9);
+        writeOutput(String.format("🎯 Matches: %d\n", matches.size()));
+        writeOutput(String.format("⏱ Elapsed: %.3f ms\n", millis));
+        writeOutput(String.format("🚀 Throughput: %.1f MB/s (one char counted as one byte)\n", throughput));
+        writeOutput(String.format("🔢 Comparisons: %d over %d window(s), average shift %.2f\n",
+            metrics.comparisons(), metrics.windows(),
+            metrics.windows() == 0 ? 0.0 : (double) metrics.shifts() / metrics.windows()));
+        writeOutput("============================================================\n");
+        Platform.runLater(() -> showMatchPages(matches));
+        updateStatus(String.format("Fast search complete! %d match(es) in %.3f ms (%.1f MB/s)",
+            matches.size(), millis, throughput));
+        
+        isSearching = false;
+    }
+    
+    /**
+     * Wildcard search, always without animation. The DFA scan is linear
+     * but not sliced, so Stop takes effect once it returns.
+     */
+    private void findPatternWildcard(String text, String pattern, CaseMode caseMode) {
+        WildcardPattern compiled;
+        try {
+            compiled = PatternSearch.compileWildcard(pattern, caseMode);
+        } catch (IllegalArgumentException e) {
+            writeOutput("⚠️ " + e.getMessage() + "\n");
+            updateStatus("Invalid wildcard pattern");
+            isSearching = false;
+            return;
+        }
+        
+        writeOutput("\n============================================================\n");
+        writeOutput(String.format("✳️ Wildcard search for '%s' (%s)\n",
+            pattern.length() > 60 ? pattern.substring(0, 60) + "..." : pattern, caseMode));
+        String literal = compiled.requiredLiteral();
+        writeOutput(literal.isEmpty()
+            ? "🔎 No required literal, every character goes through the DFA\n"
+            : String.format("🔎 Prefilter on required literal '%s'\n", literal));
+        writeOutput("============================================================\n");
+        
+        long startTime = System.nanoTime();
+        IntList matches = compiled.searchAll(text);
+        long elapsed = System.nanoTime() - startTime;
+        
+        if (!isSearching) {
+            writeOutput("⏹ Stopped\n");
+            return;
+        }
+        
+        double millis = elapsed / 1e6;
+        double throughput = elapsed == 0 ? 0 : text.length() / (1024.0 * 1024.0) / (elapsed / 1e9);
+        writeOutput(String.format("🎯 Matches: %d (start offsets)\n", matches.size()));
+        writeOutput(String.format("⏱ Elapsed: %.3f ms, %.1f MB/s, %d DFA state(s)\n",
+            millis, throughput, compiled.dfaStates()));
+        writeOutput("============================================================\n");
+        Platform.runLater(() -> showMatchPages(matches));
+        updateStatus(String.format("Wildcard search complete! %d match(es) in %.3f ms", matches.size(), millis));
+        
+        isSearching = false;
+    }
+    
     private void sleep(double milliseconds) {
         try {
             Thread.sleep((long) milliseconds);
@@ -514,6 +723,14 @@ public class PatternSearchGUI extends Application {
     }
     
     private void showExamples() {
+        if (examplesStage == null) {
+            examplesStage = createExamplesStage();
+        }
+        examplesStage.show();
+        examplesStage.toFront();
+    }
+    
+    private Stage createExamplesStage() {
         Stage exampleStage = new Stage();
         exampleStage.setTitle("📚 Example Test Cases");
         
@@ -562,7 +779,7 @@ public class PatternSearchGUI extends Application {
         
         Scene scene = new Scene(scrollPane, 600, 500);
         exampleStage.setScene(scene);
-        exampleStage.show();
+        return exampleStage;
     }
     
     private void showAlert(String title, String message) {
@@ -0,0 +1,119 @@
+/**
+ * Rabin-Karp search
+ * =================
+ * Keeps a rolling hash of the current window and only compares characters
+ * when the hash equals the pattern's hash. Arithmetic is modulo 2^32 (plain
+ * int overflow). O(n + m) expected, O(n x m) worst case. The pattern must
+ * be non-empty.
+ */
+
+import java.util.function.IntConsumer;
+
+final class RabinKarpSearch implements SearchAlgorithm.Finder {
+    
+    private static final int BASE = 0x01000193;
+    
+    private final String pattern;
+    private final int patternHash;
+    
+    // BASE^(m-1), used to remove the outgoing character from the hash
+    private final int highPower;
+    
+    RabinKarpSearch(String pattern) {
+        this.pattern = pattern;
+        int m = pattern.length();
+        int hash = 0;
+        int power = 1;
+        for (int j = 0; j < m; j++) {
+            hash = hash * BASE + pattern.charAt(j);
+            if (j > 0) {
+                power *= BASE;
+            }
+        }
+        this.patternHash = hash;
+        this.highPower = power;
+    }
+    
+    @Override
+    public int patternLength() {
+        return pattern.length();
+    }
+    
+    @Override
+    public int indexOf(String text, int from, int to) {
+        return scan(text, from, to, null);
+    }
+    
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink) {
+        scan(text, from, to, sink);
+    }
+    
+    /**
+     * Returns the first match when sink is null, otherwise reports every
+     * match and returns -1.
+     */
+    private int scan(String text, int from, int to, IntConsumer sink) {
+        int m = pattern.length();
+        int limit = to - m;
+        if (from > limit) {
+            return -1;
+        }
+        
+        int hash = 0;
+        for (int j = 0; j < m; j++) {
+            hash = hash * BASE + text.charAt(from + j);
+        }
+        
+        for (int i = from; ; i++) {
+            // Equal hashes can still collide, so confirm character by character
+            if (hash == patternHash && text.regionMatches(i, pattern, 0, m)) {
+                if (sink == null) {
+                    return i;
+                }
+                sink.accept(i);
+            }
+            if (i == limit) {
+                return -1;
+            }
+            hash = (hash - text.charAt(i) * highPower) * BASE + text.charAt(i + m);
+        }
+    }
+    
+    /**
+     * Counting copy of scan(). Each hash comparison counts as one
+     * comparison, and a hash hit as m more for the verification.
+     */
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        int m = pattern.length();
+        metrics.charsScanned += Math.max(0, to - from);
+        int limit = to - m;
+        if (from > limit) {
+            return;
+        }
+        
+        long comparisons = 0;
+        int hash = 0;
+        for (int j = 0; j < m; j++) {
+            hash = hash * BASE + text.charAt(from + j);
+        }
+        for (int i = from; ; i++) {
+            comparisons++;
+            if (hash == patternHash) {
+                comparisons += m;
+                if (text.regionMatches(i, pattern, 0, m)) {
+                    metrics.matches++;
+                    sink.accept(i);
+                }
+            }
+            if (i == limit) {
+                break;
+            }
+            hash = (hash - text.charAt(i) * highPower) * BASE + text.charAt(i + m);
+        }
+        metrics.comparisons += comparisons;
+        metrics.windows += limit - from + 1;
+        metrics.shifts += limit - from + 1;
+    }
+}
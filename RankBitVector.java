@@ -0,0 +1,75 @@
+/**
+ * Bit vector with constant-time rank
+ * ==================================
+ * The bits are packed in longs, and the number of ones before every
+ * block of 8 words is kept in an int, so rank1 is one table lookup plus
+ * at most 8 popcounts. The directory adds 1/16 to the size of the bits.
+ */
+
+final class RankBitVector {
+    
+    private static final int WORDS_PER_BLOCK = 8;
+    
+    private final int size;
+    private final long[] words;
+    private int[] blockRanks;
+    
+    RankBitVector(int size) {
+        this.size = size;
+        words = new long[(size + 63) >>> 6];
+    }
+    
+    void set(int i) {
+        words[i >>> 6] |= 1L << i;
+    }
+    
+    /**
+     * Builds the rank directory; call once after the last set().
+     */
+    RankBitVector seal() {
+        blockRanks = new int[words.length / WORDS_PER_BLOCK + 1];
+        int ones = 0;
+        for (int w = 0; w < words.length; w++) {
+            if (w % WORDS_PER_BLOCK == 0) {
+                blockRanks[w / WORDS_PER_BLOCK] = ones;
+            }
+            ones += Long.bitCount(words[w]);
+        }
+        if (words.length % WORDS_PER_BLOCK == 0) {
+            blockRanks[words.length / WORDS_PER_BLOCK] = ones;
+        }
+        return this;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean get(int i) {
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+    
+    /**
+     * Number of ones in [0, i).
+     */
+    int rank1(int i) {
+        int word = i >>> 6;
+        int block = word / WORDS_PER_BLOCK;
+        int ones = blockRanks[block];
+        for (int w = block * WORDS_PER_BLOCK; w < word; w++) {
+            ones += Long.bitCount(words[w]);
+        }
+        if ((i & 63) != 0) {
+            ones += Long.bitCount(words[word] & ((1L << i) - 1));
+        }
+        return ones;
+    }
+    
+    int rank0(int i) {
+        return i - rank1(i);
+    }
+    
+    long sizeInBytes() {
+        return 8L * words.length + 4L * blockRanks.length;
+    }
+}
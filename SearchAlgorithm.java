@@ -0,0 +1,65 @@
+/**
+ * Common interface for exact single-pattern search algorithms
+ * ============================================================
+ * An algorithm prepares a pattern once (shift tables, failure function,
+ * hashes, ...) and returns a Finder that can be run against any text.
+ * Every implementation reports the same overlapping matches as the
+ * original naive PatternSearch.search.
+ */
+
+import java.util.function.IntConsumer;
+
+public interface SearchAlgorithm {
+    
+    String name();
+    
+    /**
+     * Runs the preprocessing step for the given pattern.
+     */
+    Finder prepare(String pattern);
+    
+    default IntList search(String text, String pattern) {
+        IntList matches = new IntList();
+        prepare(pattern).findAll(text, 0, text.length(), matches);
+        return matches;
+    }
+    
+    /**
+     * A prepared pattern. Searches are limited to the range [from, to) of
+     * the text: a match at position i is reported only if i >= from and
+     * i + patternLength() <= to.
+     */
+    interface Finder {
+        
+        int patternLength();
+        
+        /**
+         * Returns the first match in [from, to), or -1 if there is none.
+         */
+        int indexOf(String text, int from, int to);
+        
+        /**
+         * Reports every match in [from, to) to the sink, in increasing order.
+         */
+        default void findAll(String text, int from, int to, IntConsumer sink) {
+            int i = indexOf(text, from, to);
+            while (i >= 0) {
+                sink.accept(i);
+                i = indexOf(text, i + 1, to);
+            }
+        }
+        
+        /**
+         * Same as findAll, and also adds the work done to metrics.
+         * Finders that cannot count comparisons record only the range
+         * scanned and the matches.
+         */
+        default void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+            metrics.charsScanned += Math.max(0, to - from);
+            findAll(text, from, to, i -> {
+                metrics.matches++;
+                sink.accept(i);
+            });
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Viewport-aware renderer for the search visualization
+ * ====================================================
+ * Draws the text as a strip of character boxes on a Canvas, but only the
+ * boxes that fit in the canvas. The view scrolls on its own to follow the
+ * pattern window, and between two steps only the boxes whose color changed
+ * are repainted. Colors, fonts and glyph widths are created once.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+final class SearchCanvasRenderer {
+    
+    private static final double CELL_WIDTH = 45;
+    private static final double CELL_HEIGHT = 45;
+    private static final double START_X = 50;
+    private static final double START_Y = 70;
+    
+    // Cell states, also indexes into CELL_COLORS
+    private static final byte OUTSIDE = 0;
+    private static final byte WINDOW = 1;
+    private static final byte COMPARING = 2;
+    private static final byte MATCH = 3;
+    private static final byte MISMATCH = 4;
+    private static final byte UNPAINTED = -1;
+    
+    private static final Color[] CELL_COLORS = {
+        Color.web("#95a5a6"),
+        Color.web("#3498db"),
+        Color.web("#f39c12"),
+        Color.web("#27ae60"),
+        Color.web("#e74c3c")
+    };
+    private static final Color BORDER_COLOR = Color.web("#2c3e50");
+    private static final Color INDEX_COLOR = Color.web("#7f8c8d");
+    private static final Color POINTER_COLOR = Color.web("#e74c3c");
+    
+    private static final Font CHAR_FONT = Font.font("Courier New", FontWeight.BOLD, 20);
+    private static final Font INDEX_FONT = Font.font("Arial", 12);
+    private static final Font LABEL_FONT = Font.font("Arial", FontWeight.BOLD, 13);
+    
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final int visibleCells;
+    
+    // Measured glyph widths, per font
+    private final Map<Character, Double> charWidths = new HashMap<>();
+    private final Map<Character, Double> indexWidths = new HashMap<>();
+    private final Map<Character, Double> labelWidths = new HashMap<>();
+    
+    // What is on the canvas now, so the next step can repaint only changes
+    private String shownText;
+    private int firstVisible;
+    private final byte[] shownStates;
+    
+    SearchCanvasRenderer(Canvas canvas) {
+        this.canvas = canvas;
+        this.gc = canvas.getGraphicsContext2D();
+        this.visibleCells = Math.max(1, (int) ((canvas.getWidth() - START_X) / CELL_WIDTH));
+        this.shownStates = new byte[visibleCells];
+        Arrays.fill(shownStates, UNPAINTED);
+    }
+    
+    void clear() {
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        shownText = null;
+        Arrays.fill(shownStates, UNPAINTED);
+    }
+    
+    void render(String text, String pattern, int position, int comparingIndex, Boolean isMatch) {
+        if (text.isEmpty() || pattern.isEmpty()) {
+            clear();
+            return;
+        }
+        
+        int n = text.length();
+        int first = scrollPosition(n, pattern.length(), position, comparingIndex);
+        
+        // A new text or a scroll invalidates every box
+        if (text != shownText || first != firstVisible) {
+            clear();
+            shownText = text;
+            firstVisible = first;
+            drawFooter(n);
+        }
+        
+        for (int k = 0; k < visibleCells && first + k < n; k++) {
+            int i = first + k;
+            byte state = cellState(i, pattern.length(), position, comparingIndex, isMatch);
+            if (state != shownStates[k]) {
+                drawCell(k, text.charAt(i), i, state);
+                shownStates[k] = state;
+            }
+        }
+        
+        // The pointer above the strip moves every step; it is cheap to redraw
+        gc.clearRect(0, 0, canvas.getWidth(), START_Y - 1);
+        if (position >= first && position < first + visibleCells) {
+            drawPointer(pattern, position - first);
+        }
+    }
+    
+    /**
+     * Keeps the current window (or at least the compared character) in view.
+     */
+    private int scrollPosition(int n, int m, int position, int comparingIndex) {
+        int maxFirst = Math.max(0, n - visibleCells);
+        int first = Math.min(firstVisible, maxFirst);
+        int focusStart = position;
+        int focusEnd = position + Math.min(m, visibleCells);
+        if (comparingIndex >= visibleCells) {
+            // Pattern wider than the view: follow the compared character
+            focusEnd = position + comparingIndex + 1;
+            focusStart = focusEnd - visibleCells;
+        }
+        if (focusStart < first) {
+            first = focusStart;
+        } else if (focusEnd > first + visibleCells) {
+            first = focusEnd - visibleCells;
+        }
+        return Math.max(0, Math.min(first, maxFirst));
+    }
+    
+    private static byte cellState(int i, int m, int position, int comparingIndex, Boolean isMatch) {
+        if (i < position || i >= position + m) {
+            return OUTSIDE;
+        }
+        if (comparingIndex >= 0 && i == position + comparingIndex) {
+            if (isMatch == null) {
+                return COMPARING;
+            }
+            return isMatch ? MATCH : MISMATCH;
+        }
+        return WINDOW;
+    }
+    
+    private void drawCell(int slot, char c, int index, byte state) {
+        double x = START_X + slot * CELL_WIDTH;
+        gc.clearRect(x - 1, START_Y - 1, CELL_WIDTH + 1, CELL_HEIGHT + 22);
+        
+        // Character box
+        gc.setFill(CELL_COLORS[state]);
+        gc.fillRect(x, START_Y, CELL_WIDTH - 2, CELL_HEIGHT);
+        gc.setStroke(BORDER_COLOR);
+        gc.setLineWidth(2);
+        gc.strokeRect(x, START_Y, CELL_WIDTH - 2, CELL_HEIGHT);
+        
+        // Character, centered
+        String glyph = c == ' ' ? "␣" : String.valueOf(c);
+        gc.setFill(Color.WHITE);
+        gc.setFont(CHAR_FONT);
+        double glyphWidth = width(glyph, CHAR_FONT, charWidths);
+        gc.fillText(glyph, x + (CELL_WIDTH - 2 - glyphWidth) / 2, START_Y + CELL_HEIGHT / 2 + 7);
+        
+        // Index below the box
+        String label = String.valueOf(index);
+        gc.setFill(INDEX_COLOR);
+        gc.setFont(INDEX_FONT);
+        gc.fillText(label, x + (CELL_WIDTH - 2 - width(label, INDEX_FONT, indexWidths)) / 2, START_Y + CELL_HEIGHT + 15);
+    }
+    
+    private void drawPointer(String pattern, int slot) {
+        double windowX = START_X + slot * CELL_WIDTH;
+        double windowY = START_Y - 25;
+        String patternText = "Pattern: '" + pattern + "'";
+        double labelWidth = width(patternText, LABEL_FONT, labelWidths);
+        
+        // Label with a framed background
+        gc.setFill(Color.WHITE);
+        gc.setStroke(POINTER_COLOR);
+        gc.setLineWidth(1);
+        gc.fillRect(windowX - 2, windowY - 15, labelWidth + 4, 18);
+        gc.strokeRect(windowX - 2, windowY - 15, labelWidth + 4, 18);
+        gc.setFill(POINTER_COLOR);
+        gc.setFont(LABEL_FONT);
+        gc.fillText(patternText, windowX, windowY);
+        
+        // Arrow to the middle of the visible part of the window
+        int shownCells = Math.min(pattern.length(), visibleCells - slot);
+        double arrowX = windowX + (shownCells * CELL_WIDTH) / 2 - 1;
+        gc.setStroke(POINTER_COLOR);
+        gc.setLineWidth(2);
+        gc.strokeLine(arrowX, windowY + 3, arrowX, START_Y - 3);
+        gc.strokeLine(arrowX, START_Y - 3, arrowX - 5, START_Y - 8);
+        gc.strokeLine(arrowX, START_Y - 3, arrowX + 5, START_Y - 8);
+    }
+    
+    private void drawFooter(int n) {
+        if (n <= visibleCells) {
+            return;
+        }
+        int last = Math.min(n, firstVisible + visibleCells) - 1;
+        gc.setFill(INDEX_COLOR);
+        gc.setFont(INDEX_FONT);
+        gc.fillText(String.format("Showing characters %d-%d of %d", firstVisible, last, n),
+            START_X, canvas.getHeight() - 8);
+    }
+    
+    /**
+     * Width of a string in the given font, summed from cached per-glyph
+     * widths (the Text node is only used the first time a glyph is seen).
+     */
+    private static double width(String s, Font font, Map<Character, Double> cache) {
+        double total = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            Double w = cache.get(c);
+            if (w == null) {
+                Text probe = new Text(String.valueOf(c));
+                probe.setFont(font);
+                w = probe.getLayoutBounds().getWidth();
+                cache.put(c, w);
+            }
+            total += w;
+        }
+        return total;
+    }
+}
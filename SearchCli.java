@@ -0,0 +1,511 @@
+/**
+ * Command-line search over files and directory trees
+ * ==================================================
+ * grep-like: java SearchCli [options] pattern [path...]
+ * 
+ * Directories are walked with Files.walkFileTree, so an unreadable
+ * directory is reported and skipped instead of ending the walk. As with
+ * grep -r, symbolic links named on the command line are followed and
+ * links met inside a tree are not; each of those gets a warning. Files are
+ * searched on a pool of threads for the UTF-8 bytes of each pattern, in
+ * chunks read into a per-thread direct buffer. Like the windows of
+ * FileSearch, each chunk reads pattern.length - 1 bytes past its end so
+ * no match is missed at the seams. (Mapping is not used here: mappings
+ * are only released by the garbage collector, and a tree of many large
+ * files could run the process out of them.) Offsets are byte offsets.
+ * 
+ * The walker takes a permit before handing a file to the pool and the
+ * search gives it back once the file is closed, so no more than
+ * --max-open files are open (or waiting) at once, however large the tree.
+ * 
+ * Output goes to stdout through one large buffer; each file's lines are
+ * written together, but files come out in the order they finish. The
+ * totals and throughput go to stderr. The exit status is 0 if anything
+ * matched, 1 if nothing did and 2 if a file could not be read.
+ */
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+public final class SearchCli {
+    
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+    
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int OUTPUT_BUFFER = 1 << 20;
+    
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: java SearchCli [options] pattern [path...]",
+        "Searches files and directory trees (default: .) for the UTF-8 bytes of the pattern.",
+        "Symbolic links are followed when named as a path, and skipped inside directories.",
+        "  -e pattern        search for this pattern; repeat for several (paths then follow)",
+        "  -c, --count       print the number of matches per file",
+        "  -1, --first       print only the first match per file",
+        "  --json            print one JSON object per file",
+        "  -j threads        scanning threads (default: number of processors)",
+        "  --max-open n      files open at once (default " + DEFAULT_MAX_OPEN_FILES + ")");
+    
+    private enum Mode { ALL, COUNT, FIRST }
+    
+    private final List<String> patterns;
+    private final ByteSearch[] finders;
+    private final int maxPatternLength;
+    private final Mode mode;
+    private final boolean json;
+    private final int threads;
+    private final Semaphore openFiles;
+    private final Writer out;
+    private final PrintStream err;
+    
+    private final LongAdder filesSearched = new LongAdder();
+    private final LongAdder filesMatched = new LongAdder();
+    private final LongAdder bytesSearched = new LongAdder();
+    private final LongAdder matchCount = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    
+    private final ThreadLocal<ByteBuffer> chunkBuffer;
+    
+    private SearchCli(List<String> patterns, Mode mode, boolean json, int threads, int maxOpen,
+                      Writer out, PrintStream err) {
+        this.patterns = patterns;
+        this.mode = mode;
+        this.json = json;
+        this.threads = threads;
+        this.openFiles = new Semaphore(maxOpen);
+        this.out = out;
+        this.err = err;
+        finders = new ByteSearch[patterns.size()];
+        int longest = 0;
+        for (int p = 0; p < finders.length; p++) {
+            finders[p] = new ByteSearch(patterns.get(p).getBytes(StandardCharsets.UTF_8));
+            longest = Math.max(longest, finders[p].patternLength());
+        }
+        maxPatternLength = longest;
+        int capacity = CHUNK_SIZE + Math.max(longest - 1, 0);
+        chunkBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(capacity));
+    }
+    
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+    
+    /**
+     * Runs the command and returns its exit status.
+     */
+    public static int run(String[] args) {
+        List<String> patterns = new ArrayList<>();
+        List<Path> paths = new ArrayList<>();
+        Mode mode = Mode.ALL;
+        boolean json = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxOpen = DEFAULT_MAX_OPEN_FILES;
+        boolean explicitPatterns = false;
+        List<String> operands = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-e":
+                        patterns.add(value(args, ++i, arg));
+                        explicitPatterns = true;
+                        break;
+                    case "-c":
+                    case "--count":
+                        mode = Mode.COUNT;
+                        break;
+                    case "-1":
+                    case "--first":
+                        mode = Mode.FIRST;
+                        break;
+                    case "--json":
+                        json = true;
+                        break;
+                    case "-j":
+                        threads = positive(value(args, ++i, arg), arg);
+                        break;
+                    case "--max-open":
+                        maxOpen = positive(value(args, ++i, arg), arg);
+                        break;
+                    case "-h":
+                    case "--help":
+                        System.out.println(USAGE);
+                        return 0;
+                    case "--":
+                        operands.addAll(List.of(args).subList(i + 1, args.length));
+                        i = args.length;
+                        break;
+                    default:
+                        if (arg.startsWith("-") && arg.length() > 1) {
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        operands.add(arg);
+                }
+            }
+            if (!explicitPatterns) {
+                if (operands.isEmpty()) {
+                    throw new IllegalArgumentException("No pattern given");
+                }
+                patterns.add(operands.remove(0));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("SearchCli: " + e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        for (String operand : operands) {
+            paths.add(Paths.get(operand));
+        }
+        if (paths.isEmpty()) {
+            paths.add(Paths.get("."));
+        }
+        
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), OUTPUT_BUFFER);
+        SearchCli cli = new SearchCli(patterns, mode, json, Math.min(threads, maxOpen), maxOpen, out, System.err);
+        try {
+            return cli.search(paths);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 2;
+        }
+    }
+    
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[i];
+    }
+    
+    private static int positive(String value, String option) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(option + " needs a positive number: " + value);
+    }
+    
+    private int search(List<Path> paths) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "search-cli");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            for (Path path : paths) {
+                walk(path, pool);
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            err.println("SearchCli: " + e.getMessage());
+            return 2;
+        }
+        
+        double seconds = elapsed / 1e9;
+        double megabytes = bytesSearched.sum() / (1024.0 * 1024.0);
+        err.printf("%d file(s), %.1f MB in %.3f s (%.1f MB/s); %d match(es) in %d file(s)%n",
+            filesSearched.sum(), megabytes, seconds, seconds == 0 ? 0.0 : megabytes / seconds,
+            matchCount.sum(), filesMatched.sum());
+        if (errors.sum() > 0) {
+            return 2;
+        }
+        return matchCount.sum() > 0 ? 0 : 1;
+    }
+    
+    private void walk(Path root, ExecutorService pool) throws InterruptedException {
+        // A link given as an operand is followed, but then the attributes
+        // the walk reports are the targets', so links below it are found
+        // with an extra lookup
+        boolean rootIsLink = Files.isSymbolicLink(root);
+        Set<FileVisitOption> options = rootIsLink ? EnumSet.of(FileVisitOption.FOLLOW_LINKS)
+            : EnumSet.noneOf(FileVisitOption.class);
+        try {
+            Files.walkFileTree(root, options, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    if (rootIsLink && !dir.equals(root) && Files.isSymbolicLink(dir)) {
+                        skipLink(dir);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isSymbolicLink()
+                        || (rootIsLink && !file.equals(root) && Files.isSymbolicLink(file))) {
+                        skipLink(file);
+                        return FileVisitResult.CONTINUE;
+                    }
+                    if (attributes.isRegularFile()) {
+                        try {
+                            submit(file, pool);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return FileVisitResult.TERMINATE;
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // A link back up the tree, noticed before preVisitDirectory
+                    if (e instanceof FileSystemLoopException) {
+                        skipLink(file);
+                        return FileVisitResult.CONTINUE;
+                    }
+                    fail(file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            fail(root, e);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+    
+    // Blocks while max-open files are in flight
+    private void submit(Path file, ExecutorService pool) throws InterruptedException {
+        openFiles.acquire();
+        try {
+            pool.execute(() -> {
+                try {
+                    searchFile(file);
+                } finally {
+                    openFiles.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            openFiles.release();
+            throw e;
+        }
+    }
+    
+    private void searchFile(Path file) {
+        long limit = mode == Mode.FIRST ? 1 : Long.MAX_VALUE;
+        long[] counts = new long[finders.length];
+        LongStream.Builder[] offsets = new LongStream.Builder[finders.length];
+        for (int p = 0; p < finders.length; p++) {
+            offsets[p] = LongStream.builder();
+        }
+        LongConsumer discard = offset -> { };
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            ByteBuffer buffer = chunkBuffer.get();
+            long position = 0;
+            boolean done;
+            do {
+                long end = Math.min(position + CHUNK_SIZE, size);
+                long readEnd = end == size ? size : Math.min(end + maxPatternLength - 1, size);
+                int length = read(channel, buffer, position, (int) (readEnd - position));
+                if (length < readEnd - position) {
+                    // The file got shorter while we read it
+                    size = position + length;
+                    end = size;
+                }
+                done = mode != Mode.FIRST;
+                for (int p = 0; p < finders.length; p++) {
+                    if (counts[p] >= limit) {
+                        continue;
+                    }
+                    // Only matches starting before end belong to this chunk
+                    int to = end == size ? length
+                        : (int) Math.min(end - position + finders[p].patternLength() - 1, length);
+                    counts[p] += scan(buffer, to, position, finders[p], limit - counts[p],
+                        mode == Mode.COUNT ? discard : offsets[p]);
+                    // In FIRST mode every pattern has been scanned up to end, so
+                    // a match in this chunk is the earliest one of the file
+                    if (mode == Mode.FIRST) {
+                        done |= counts[p] > 0;
+                    } else {
+                        done &= counts[p] >= limit;
+                    }
+                }
+                position = end;
+            } while (position < size && !done);
+            size = position;
+        } catch (IOException e) {
+            fail(file, e);
+            return;
+        }
+        filesSearched.increment();
+        bytesSearched.add(size);
+        
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (mode == Mode.FIRST) {
+            total = Math.min(total, 1);
+        }
+        if (total == 0) {
+            return;
+        }
+        filesMatched.increment();
+        matchCount.add(total);
+        long[][] found = new long[finders.length][];
+        for (int p = 0; p < finders.length; p++) {
+            found[p] = offsets[p].build().toArray();
+        }
+        write(file, total, found);
+    }
+    
+    // Reads up to length bytes from the file position into the buffer,
+    // which is left holding them from index 0; returns how many were read
+    private static int read(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+    
+    // Reports at most limit matches in [0, to) of the buffer, in increasing
+    // order, and returns how many
+    private static long scan(ByteBuffer buffer, int to, long base, ByteSearch finder, long limit,
+                             LongConsumer sink) {
+        long reported = 0;
+        int i = finder.indexOf(buffer, 0, to);
+        while (i >= 0 && reported < limit) {
+            sink.accept(base + i);
+            reported++;
+            i = finder.indexOf(buffer, i + 1, to);
+        }
+        return reported;
+    }
+    
+    private void write(Path file, long total, long[][] found) {
+        String name = file.toString();
+        StringBuilder sb = new StringBuilder();
+        if (json) {
+            sb.append("{\"path\":");
+            appendJsonString(sb, name);
+            sb.append(",\"count\":").append(total);
+            if (mode != Mode.COUNT) {
+                sb.append(",\"matches\":[");
+                forEachMatch(found, (offset, p) -> {
+                    if (sb.charAt(sb.length() - 1) != '[') {
+                        sb.append(',');
+                    }
+                    sb.append("{\"offset\":").append(offset).append(",\"pattern\":");
+                    appendJsonString(sb, patterns.get(p));
+                    sb.append('}');
+                });
+                sb.append(']');
+            }
+            sb.append("}\n");
+        } else if (mode == Mode.COUNT) {
+            sb.append(name).append(':').append(total).append('\n');
+        } else {
+            boolean several = patterns.size() > 1;
+            forEachMatch(found, (offset, p) -> {
+                sb.append(name).append(':').append(offset);
+                if (several) {
+                    sb.append(':').append(patterns.get(p));
+                }
+                sb.append('\n');
+            });
+        }
+        synchronized (out) {
+            try {
+                out.write(sb.toString());
+            } catch (IOException e) {
+                fail(file, e);
+            }
+        }
+    }
+    
+    private interface MatchSink {
+        void accept(long offset, int pattern);
+    }
+    
+    // Merges the sorted offsets of every pattern; with --first only the
+    // earliest match is reported
+    private void forEachMatch(long[][] found, MatchSink sink) {
+        int[] next = new int[found.length];
+        while (true) {
+            int best = -1;
+            for (int p = 0; p < found.length; p++) {
+                if (next[p] < found[p].length && (best < 0 || found[p][next[p]] < found[best][next[best]])) {
+                    best = p;
+                }
+            }
+            if (best < 0) {
+                return;
+            }
+            sink.accept(found[best][next[best]++], best);
+            if (mode == Mode.FIRST) {
+                return;
+            }
+        }
+    }
+    
+    private static void appendJsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+    
+    private void skipLink(Path link) {
+        err.println("SearchCli: " + link + ": symbolic link skipped (name it as a path to search it)");
+    }
+    
+    private void fail(Path path, IOException e) {
+        errors.increment();
+        err.println("SearchCli: " + path + ": " + e);
+    }
+}
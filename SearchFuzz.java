@@ -0,0 +1,854 @@
+/**
+ * Differential fuzzing of every search engine
+ * ===========================================
+ * java SearchFuzz [cases] [seed] [engine-filter]
+ * 
+ * Generates random and adversarial (text, pattern) pairs and checks that
+ * every engine returns exactly what the naive search returns: the
+ * original substring-by-substring loop, kept here as the oracle. The
+ * generators aim at the usual suspects - overlapping matches, empty
+ * patterns, patterns longer than the text, periodic texts, chars that
+ * share a low byte in the shift tables, surrogate pairs and letters whose
+ * case folding is unusual - and at the seams of the chunked, sliced,
+ * streamed and parallel paths.
+ * 
+ * Engines that answer a different question get their own oracle. Wildcard
+ * patterns, made by turning some pattern chars into ?, *, classes and
+ * groups, are checked against the same pattern as a java.util.regex run
+ * from every offset. Approximate search with k > 0 is checked against a
+ * mismatch count per window (Hamming) and the textbook edit-distance
+ * table (Levenshtein).
+ * 
+ * A failing pair is shrunk (chunks of the text and pattern removed, chars
+ * simplified) while it still fails, then printed with the seed to repeat
+ * it. An engine that has failed once is not run again. The exit status is
+ * 1 if anything failed.
+ * 
+ * Before the fuzzing, SearchService is checked against a subscriber that
+ * stops requesting: its deadline must still fire, and other requests
+ * must not be held up.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+public final class SearchFuzz {
+    
+    public static final int DEFAULT_CASES = 1_000_000;
+    
+    // Chars chosen to trip up the engines: low-byte collisions ('a' and
+    // U+0161, 'b' and U+0162), surrogate pairs (split apart at random),
+    // among them an upper and lower case Deseret letter, and letters with
+    // unusual case folding (Kelvin sign, long s, dotted and dotless i,
+    // final sigma)
+    private static final String TRICKY = "ab\u0161\u0162\uD83D\uDE00\uD800\uDC00\uD801\uDC00\uD801\uDC28"
+        + "K\u212As\u017FI\u0130i\u0131\u03C2\u03A3";
+    private static final int MAX_STARS = 2;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz ABCXYZ";
+    
+    /**
+     * One way of searching. run returns the start offsets, in increasing
+     * order, or throws.
+     */
+    private interface Engine {
+        IntList run(String text, String pattern) throws Exception;
+    }
+    
+    /**
+     * What an engine should return, for engines that do not answer the
+     * exact-search question the naive oracle answers.
+     */
+    private interface Oracle {
+        List<Integer> expected(String text, String pattern);
+    }
+    
+    private static final class Target {
+        final String name;
+        final CaseMode caseMode;
+        final Predicate<String> accepts;
+        final boolean nonEmptyPattern;
+        final int every;
+        final Engine engine;
+        // Null for the naive search; set for wildcard and approximate search
+        Oracle oracle;
+        long checks;
+        boolean failed;
+        
+        Target(String name, CaseMode caseMode, Predicate<String> accepts, boolean nonEmptyPattern, int every,
+               Engine engine) {
+            this.name = name;
+            this.caseMode = caseMode;
+            this.accepts = accepts;
+            this.nonEmptyPattern = nonEmptyPattern;
+            this.every = every;
+            this.engine = engine;
+        }
+        
+        boolean appliesTo(String text, String pattern) {
+            if (nonEmptyPattern && pattern.isEmpty()) {
+                return false;
+            }
+            return accepts.test(text) && accepts.test(pattern);
+        }
+        
+        List<Integer> expected(String text, String pattern) {
+            return oracle != null ? oracle.expected(text, pattern) : oracle(text, pattern, caseMode);
+        }
+    }
+    
+    private final List<Target> targets = new ArrayList<>();
+    private final boolean checkService;
+    private final Random random;
+    private final ParallelSearch parallel = new ParallelSearch(0, 7, 3);
+    private final SearchService service = new SearchService();
+    private final Path scratchFile;
+    
+    // Where the sliced and streamed engines cut the text, varied per case
+    private int cut = 1;
+    
+    // Seeds the choice of which pattern chars become wildcards, per case
+    private long shape;
+    
+    private SearchFuzz(long seed, String filter) throws IOException {
+        random = new Random(seed);
+        scratchFile = Files.createTempFile("search-fuzz", ".bin");
+        scratchFile.toFile().deleteOnExit();
+        register();
+        targets.removeIf(target -> filter != null && !target.name.contains(filter));
+        checkService = filter == null || "SearchService".contains(filter);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        long cases = args.length > 0 ? Long.parseLong(args[0].replace("_", "")) : DEFAULT_CASES;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        String filter = args.length > 2 ? args[2] : null;
+        SearchFuzz fuzz = new SearchFuzz(seed, filter);
+        boolean ok;
+        try {
+            ok = fuzz.run(cases, seed);
+        } finally {
+            fuzz.close();
+        }
+        System.exit(ok ? 0 : 1);
+    }
+    
+    private void register() {
+        for (Algorithm algorithm : Algorithm.values()) {
+            add(algorithm.name(), 1, (t, p) -> PatternSearch.searchAll(t, p, algorithm));
+        }
+        add("searchAll (auto)", 1, PatternSearch::searchAll);
+        add("search (List)", 1, (t, p) -> toIntList(PatternSearch.search(t, p)));
+        for (CaseMode caseMode : CaseMode.values()) {
+            add(caseMode, "searchAll " + caseMode, 1, (t, p) -> PatternSearch.searchAll(t, p, caseMode));
+        }
+        add("CompiledPattern sliced", 1, this::sliced);
+        add("CompiledPattern indexOf loop", 1, (t, p) -> {
+            CompiledPattern compiled = PatternSearch.compile(p);
+            IntList matches = new IntList();
+            for (int i = compiled.indexOf(t, 0); i >= 0; i = compiled.indexOf(t, i + 1)) {
+                matches.add(i);
+            }
+            return matches;
+        });
+        add("CompiledPattern matches", 1, (t, p) -> {
+            IntList matches = new IntList();
+            PrimitiveIterator.OfInt iterator = PatternSearch.matches(t, p);
+            while (iterator.hasNext()) {
+                matches.add(iterator.nextInt());
+            }
+            return matches;
+        });
+        add("CompiledPattern stream", 1, (t, p) -> toIntList(PatternSearch.stream(t, p)));
+        add("CompiledPattern count/contains", 1, (t, p) -> {
+            IntList expected = PatternSearch.searchAll(t, p);
+            int count = PatternSearch.count(t, p);
+            boolean contains = PatternSearch.contains(t, p);
+            IntList first = PatternSearch.findFirst(t, p, 2);
+            if (count != expected.size()) {
+                throw new AssertionError("count() = " + count + ", searchAll found " + expected.size());
+            }
+            if (contains == expected.isEmpty()) {
+                throw new AssertionError("contains() = " + contains + ", searchAll found " + expected.size());
+            }
+            IntList head = new IntList();
+            for (int i = 0; i < Math.min(2, expected.size()); i++) {
+                head.add(expected.get(i));
+            }
+            if (!first.asList().equals(head.asList())) {
+                throw new AssertionError("findFirst(2) = " + first + ", searchAll starts with " + head);
+            }
+            return expected;
+        });
+        add("ParallelSearch", 1, (t, p) -> parallel.searchAll(t, p));
+        add("CharSearch char[]", 1, (t, p) -> {
+            char[] padded = ("xy" + t + "z").toCharArray();
+            IntList shifted = PatternSearch.searchAll(padded, 2, t.length(), p);
+            IntList matches = new IntList();
+            for (int i = 0; i < shifted.size(); i++) {
+                matches.add(shifted.get(i) - 2);
+            }
+            return matches;
+        });
+        add("CharSearch StringBuilder", 1, (t, p) -> PatternSearch.searchAll(new StringBuilder(t), p));
+        for (String kind : List.of("heap", "direct", "sliced")) {
+            add("CharSearch " + kind + " CharBuffer", 1, (t, p) -> {
+                CharBuffer buffer = embedded(t, p, kind);
+                int start = buffer.position();
+                IntList absolute = PatternSearch.searchAll(buffer, p);
+                IntList matches = new IntList();
+                for (int i = 0; i < absolute.size(); i++) {
+                    matches.add(absolute.get(i) - start);
+                }
+                return matches;
+            });
+            add("CharSearch " + kind + " CharBuffer as CharSequence", 1,
+                (t, p) -> PatternSearch.searchAll((CharSequence) embedded(t, p, kind), p));
+        }
+        add("WildcardPattern (escaped)", 1, (t, p) -> WildcardPattern.compile(escapeWildcards(p)).searchAll(t));
+        add(CaseMode.IGNORE_ASCII, "WildcardPattern IGNORE_ASCII", 1,
+            (t, p) -> WildcardPattern.compile(escapeWildcards(p), CaseMode.IGNORE_ASCII).searchAll(t));
+        for (CaseMode caseMode : List.of(CaseMode.SENSITIVE, CaseMode.IGNORE_ASCII)) {
+            addWithOracle("WildcardPattern syntax " + caseMode, SearchFuzz::isRegexFriendly,
+                (t, p) -> WildcardPattern.compile(wildcardOf(p)[0], caseMode).searchAll(t),
+                (t, p) -> wildcardOracle(t, p, caseMode));
+        }
+        add("ApproximateSearch hamming k=0", 1, (t, p) -> endsToStarts(ApproximateSearch.hamming(p, 0).findAll(t), p));
+        add("ApproximateSearch levenshtein k=0", 1,
+            (t, p) -> endsToStarts(ApproximateSearch.levenshtein(p, 0).findAll(t), p));
+        for (int k = 1; k <= 3; k++) {
+            int maxDistance = k;
+            addWithOracle("ApproximateSearch hamming k=" + k, s -> true,
+                (t, p) -> ApproximateSearch.hamming(p, maxDistance).findAll(t),
+                (t, p) -> hammingEnds(t, p, maxDistance));
+            addWithOracle("ApproximateSearch levenshtein k=" + k, s -> true,
+                (t, p) -> ApproximateSearch.levenshtein(p, maxDistance).findAll(t),
+                (t, p) -> levenshteinEnds(t, p, maxDistance));
+        }
+        addNonEmpty("AhoCorasick", (t, p) -> {
+            AhoCorasick automaton = PatternSearch.compileAll(p + "\u0000", p,
+                p.length() > 1 ? p.substring(0, p.length() - 1) : p + p);
+            AhoCorasick.Matches found = automaton.findAll(t);
+            IntList matches = new IntList();
+            for (int i = 0; i < found.size(); i++) {
+                if (found.patternId(i) == 1) {
+                    matches.add(found.offset(i));
+                }
+            }
+            return matches;
+        });
+        addNonEmpty("StreamMatcher chars", (t, p) -> {
+            IntList matches = new IntList();
+            StreamMatcher matcher = StreamMatcher.forChars(p, offset -> matches.add((int) offset));
+            for (int from = 0; from < t.length(); from += cut) {
+                matcher.feed(t.substring(from, Math.min(from + cut, t.length())));
+            }
+            return matches;
+        });
+        add("SuffixArrayIndex", 4, (t, p) -> SuffixArrayIndex.build(t).search(p));
+        add("FmIndex", 4, (t, p) -> FmIndex.build(t, 1 + random.nextInt(8)).locate(p));
+        add("SearchService", 64, this::viaService);
+        
+        // Byte engines see the text as Latin-1, one byte per char
+        targets.add(new Target("ByteSearch byte[]", CaseMode.SENSITIVE, SearchFuzz::isLatin1, false, 1,
+            (t, p) -> PatternSearch.searchAll(latin1(t), latin1(p))));
+        targets.add(new Target("ByteSearch direct ByteBuffer", CaseMode.SENSITIVE, SearchFuzz::isLatin1, false, 1, (t, p) -> {
+            byte[] bytes = latin1(t);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            return PatternSearch.searchAll(buffer, latin1(p));
+        }));
+        targets.add(new Target("StreamMatcher bytes", CaseMode.SENSITIVE, SearchFuzz::isLatin1, true, 1, (t, p) -> {
+            IntList matches = new IntList();
+            StreamMatcher matcher = StreamMatcher.forBytes(latin1(p), offset -> matches.add((int) offset));
+            byte[] bytes = latin1(t);
+            for (int from = 0; from < bytes.length; from += cut) {
+                matcher.feed(bytes, from, Math.min(cut, bytes.length - from));
+            }
+            return matches;
+        }));
+        targets.add(new Target("FileSearch", CaseMode.SENSITIVE, SearchFuzz::isLatin1, false, 16, (t, p) -> {
+            Files.write(scratchFile, latin1(t));
+            IntList matches = new IntList();
+            new FileSearch(cut).search(scratchFile, latin1(p), offset -> matches.add((int) offset));
+            return matches;
+        }));
+    }
+    
+    private void add(String name, int every, Engine engine) {
+        add(CaseMode.SENSITIVE, name, every, engine);
+    }
+    
+    private void add(CaseMode caseMode, String name, int every, Engine engine) {
+        // String.regionMatches, the oracle, is unreliable on lone surrogates
+        Predicate<String> accepts = caseMode == CaseMode.IGNORE_UNICODE ? SearchFuzz::isWellFormed : s -> true;
+        targets.add(new Target(name, caseMode, accepts, false, every, engine));
+    }
+    
+    private void addWithOracle(String name, Predicate<String> accepts, Engine engine, Oracle oracle) {
+        Target target = new Target(name, CaseMode.SENSITIVE, accepts, false, 1, engine);
+        target.oracle = oracle;
+        targets.add(target);
+    }
+    
+    private void addNonEmpty(String name, Engine engine) {
+        targets.add(new Target(name, CaseMode.SENSITIVE, s -> true, true, 1, engine));
+    }
+    
+    // The text in random slices, each reaching pattern.length() - 1 chars
+    // past its end, the way the GUI and SearchService cut it
+    private IntList sliced(String text, String pattern) {
+        CompiledPattern compiled = PatternSearch.compile(pattern);
+        IntList matches = new IntList();
+        int n = text.length();
+        int m = pattern.length();
+        int start = 0;
+        do {
+            int end = Math.min(start + cut, n);
+            int to = end == n ? n : Math.min(end + m - 1, n);
+            compiled.findAll(text, start, to, matches, new SearchMetrics());
+            start = end;
+        } while (start < n);
+        return matches;
+    }
+    
+    // The text between position and limit, with filler made of the pattern
+    // on both sides, so a search that strays outside finds extra matches
+    private CharBuffer embedded(String text, String pattern, String kind) {
+        String filler = repeat(pattern.isEmpty() ? "a" : pattern, cut);
+        String all = filler + text + filler;
+        CharBuffer buffer;
+        switch (kind) {
+            case "heap":
+                buffer = CharBuffer.wrap(all.toCharArray());
+                break;
+            case "direct":
+                buffer = ByteBuffer.allocateDirect(2 * all.length()).asCharBuffer();
+                buffer.put(all);
+                break;
+            default:
+                // A slice has a nonzero array offset
+                CharBuffer outer = CharBuffer.wrap(("#" + all).toCharArray());
+                outer.position(1);
+                buffer = outer.slice();
+        }
+        buffer.limit(filler.length() + text.length());
+        buffer.position(filler.length());
+        return buffer;
+    }
+    
+    private IntList viaService(String text, String pattern) throws Exception {
+        IntList[] result = new IntList[1];
+        SearchService.Request request = service.search(List.of(SearchService.Document.of("fuzz", text)), pattern,
+            null, new SearchService.ResultListener() {
+                @Override
+                public void onResult(SearchService.Result r) {
+                    result[0] = r.matches();
+                }
+                
+                @Override
+                public void onComplete(SearchService.Status status) {
+                }
+            });
+        SearchService.Status status = request.await(Duration.ofSeconds(30));
+        if (status != SearchService.Status.COMPLETED) {
+            throw new IllegalStateException("Request ended with " + status);
+        }
+        return result[0];
+    }
+    
+    /**
+     * A subscriber that takes one result and never asks for more, with a
+     * deadline. The request must still end with a TimeoutException, and a
+     * second request meanwhile must complete.
+     */
+    private boolean checkStalledSubscriber() throws Exception {
+        List<SearchService.Document> documents = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            documents.add(SearchService.Document.of("stalled " + i, repeat("abc", 300)));
+        }
+        CompletableFuture<Throwable> ended = new CompletableFuture<>();
+        service.publisher(documents, PatternSearch.compile("abc"), Duration.ofMillis(200))
+            .subscribe(new Flow.Subscriber<SearchService.Result>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(1);
+                }
+                
+                @Override
+                public void onNext(SearchService.Result result) {
+                }
+                
+                @Override
+                public void onError(Throwable error) {
+                    ended.complete(error);
+                }
+                
+                @Override
+                public void onComplete() {
+                    ended.complete(null);
+                }
+            });
+        IntList other = viaService("abcabc", "abc");
+        Throwable error = ended.get(10, TimeUnit.SECONDS);
+        return error instanceof TimeoutException && other.size() == 2;
+    }
+    
+    private boolean run(long cases, long seed) {
+        if (checkService) {
+            boolean ok;
+            try {
+                ok = checkStalledSubscriber();
+            } catch (Exception e) {
+                ok = false;
+            }
+            System.out.println("SearchService with a stalled subscriber: " + (ok ? "ok" : "FAILED"));
+            if (!ok) {
+                return false;
+            }
+        }
+        System.out.printf("Fuzzing %d engine(s) with %d case(s), seed %d%n", targets.size(), cases, seed);
+        long start = System.nanoTime();
+        long failures = 0;
+        for (long c = 0; c < cases; c++) {
+            String[] pair = generate();
+            cut = 1 + random.nextInt(random.nextBoolean() ? 4 : 64);
+            shape = random.nextLong();
+            for (Target target : targets) {
+                if (target.failed || c % target.every != 0 || !target.appliesTo(pair[0], pair[1])) {
+                    continue;
+                }
+                target.checks++;
+                if (!check(target, pair[0], pair[1])) {
+                    target.failed = true;
+                    failures++;
+                    report(target, pair[0], pair[1], seed, c);
+                }
+            }
+            if ((c + 1) % 100_000 == 0) {
+                System.out.printf("  %,d cases, %.1f s%n", c + 1, (System.nanoTime() - start) / 1e9);
+            }
+        }
+        System.out.println();
+        for (Target target : targets) {
+            System.out.printf("%-48s %12d check(s)  %s%n", target.name, target.checks,
+                target.failed ? "FAILED" : "ok");
+        }
+        System.out.printf("%d failure(s) in %.1f s%n", failures, (System.nanoTime() - start) / 1e9);
+        return failures == 0;
+    }
+    
+    private boolean check(Target target, String text, String pattern) {
+        try {
+            return target.expected(text, pattern).equals(target.engine.run(text, pattern).asList());
+        } catch (Exception | AssertionError | StackOverflowError e) {
+            return false;
+        }
+    }
+    
+    /**
+     * The naive search: every window compared with the pattern. It does
+     * not use CaseMode, so folding bugs there show up too: ignoring case
+     * goes through String.regionMatches, or a separate ASCII fold.
+     */
+    static List<Integer> oracle(String text, String pattern, CaseMode caseMode) {
+        List<Integer> matches = new ArrayList<>();
+        int m = pattern.length();
+        for (int i = 0; i <= text.length() - m; i++) {
+            boolean match;
+            switch (caseMode) {
+                case SENSITIVE:
+                    match = text.substring(i, i + m).equals(pattern);
+                    break;
+                case IGNORE_ASCII:
+                    match = true;
+                    for (int j = 0; match && j < m; j++) {
+                        match = asciiLower(text.charAt(i + j)) == asciiLower(pattern.charAt(j));
+                    }
+                    break;
+                default:
+                    match = text.regionMatches(true, i, pattern, 0, m);
+            }
+            if (match) {
+                matches.add(i);
+            }
+        }
+        return matches;
+    }
+    
+    private static char asciiLower(char c) {
+        return c < 0x80 ? Character.toLowerCase(c) : c;
+    }
+    
+    /**
+     * A wildcard pattern made from the literal one, with some chars
+     * replaced by ?, a class or a group, or preceded by a *, and the same
+     * pattern as a regex. The choices depend only on the pattern and the
+     * case's shape seed, so shrinking the pattern keeps the syntax valid.
+     * At most MAX_STARS stars, so the backtracking regex stays quick.
+     */
+    private String[] wildcardOf(String pattern) {
+        Random choices = new Random(shape);
+        int stars = 0;
+        StringBuilder wildcard = new StringBuilder();
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            char other = LETTERS.charAt(choices.nextInt(LETTERS.length()));
+            int choice = choices.nextInt(12);
+            if (choice == 1 && ++stars > MAX_STARS) {
+                choice = 0;
+            }
+            switch (choice) {
+                case 0:
+                    wildcard.append('?');
+                    regex.append('.');
+                    break;
+                case 1:
+                    wildcard.append('*').append(escapeWildcards(String.valueOf(c)));
+                    regex.append(".*?").append(regexChar(c));
+                    break;
+                case 2:
+                    wildcard.append('[').append(classMember(c)).append(classMember(other)).append(']');
+                    regex.append('[').append(regexChar(c)).append(regexChar(other)).append(']');
+                    break;
+                case 3:
+                    char low = (char) Math.min(c, other);
+                    char high = (char) Math.max(c, other);
+                    wildcard.append('[').append(classMember(low)).append('-').append(classMember(high)).append(']');
+                    regex.append('[').append(regexChar(low)).append('-').append(regexChar(high)).append(']');
+                    break;
+                case 4:
+                    wildcard.append(choices.nextBoolean() ? "[^" : "[!").append(classMember(other)).append(']');
+                    regex.append("[^").append(regexChar(other)).append(']');
+                    break;
+                case 5:
+                    String alternative = choices.nextBoolean() ? "" : "" + other + c;
+                    wildcard.append('(').append(escapeWildcards(String.valueOf(c))).append('|')
+                        .append(escapeWildcards(alternative)).append(')');
+                    regex.append("(?:").append(regexChar(c)).append('|');
+                    for (int j = 0; j < alternative.length(); j++) {
+                        regex.append(regexChar(alternative.charAt(j)));
+                    }
+                    regex.append(')');
+                    break;
+                default:
+                    wildcard.append(escapeWildcards(String.valueOf(c)));
+                    regex.append(regexChar(c));
+            }
+        }
+        return new String[] {wildcard.toString(), regex.toString()};
+    }
+    
+    private static String classMember(char c) {
+        return "\\]-^!".indexOf(c) >= 0 ? "\\" + c : String.valueOf(c);
+    }
+    
+    private static String regexChar(char c) {
+        return String.format("\\x{%x}", (int) c);
+    }
+    
+    // Every start from which the regex matches some prefix of the rest
+    private List<Integer> wildcardOracle(String text, String pattern, CaseMode caseMode) {
+        int flags = Pattern.DOTALL | (caseMode == CaseMode.IGNORE_ASCII ? Pattern.CASE_INSENSITIVE : 0);
+        Matcher matcher = Pattern.compile(wildcardOf(pattern)[1], flags).matcher(text);
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i <= text.length(); i++) {
+            matcher.region(i, text.length());
+            if (matcher.lookingAt()) {
+                matches.add(i);
+            }
+        }
+        return matches;
+    }
+    
+    // End offsets of the windows with at most k mismatches, counted one by one
+    private static List<Integer> hammingEnds(String text, String pattern, int k) {
+        List<Integer> ends = new ArrayList<>();
+        int m = pattern.length();
+        for (int i = 0; i <= text.length() - m; i++) {
+            int mismatches = 0;
+            for (int j = 0; j < m; j++) {
+                if (text.charAt(i + j) != pattern.charAt(j)) {
+                    mismatches++;
+                }
+            }
+            if (mismatches <= k) {
+                ends.add(i + m);
+            }
+        }
+        return ends;
+    }
+    
+    // End offsets where some substring is within k edits of the pattern:
+    // the textbook dynamic program, one column per text position
+    private static List<Integer> levenshteinEnds(String text, String pattern, int k) {
+        List<Integer> ends = new ArrayList<>();
+        int m = pattern.length();
+        int[] column = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            column[j] = j;
+        }
+        if (column[m] <= k) {
+            ends.add(0);
+        }
+        for (int end = 1; end <= text.length(); end++) {
+            int diagonal = column[0];
+            column[0] = 0;
+            for (int j = 1; j <= m; j++) {
+                int above = column[j];
+                int cost = text.charAt(end - 1) == pattern.charAt(j - 1) ? 0 : 1;
+                column[j] = Math.min(diagonal + cost, Math.min(column[j - 1], above) + 1);
+                diagonal = above;
+            }
+            if (column[m] <= k) {
+                ends.add(end);
+            }
+        }
+        return ends;
+    }
+    
+    // Removes pieces of the text and pattern, and replaces chars with
+    // simpler ones, for as long as the target still fails
+    private void report(Target target, String text, String pattern, long seed, long caseIndex) {
+        String t = text;
+        String p = pattern;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (String[] candidate : smaller(t, p)) {
+                if (target.appliesTo(candidate[0], candidate[1]) && !check(target, candidate[0], candidate[1])) {
+                    t = candidate[0];
+                    p = candidate[1];
+                    progress = true;
+                    break;
+                }
+            }
+        }
+        System.out.println();
+        System.out.println("MISMATCH in " + target.name + " (seed " + seed + ", case " + caseIndex + ")");
+        System.out.println("  text:     " + show(t) + " (" + t.length() + " chars, " + text.length() + " before shrinking)");
+        System.out.println("  pattern:  " + show(p) + " (" + p.length() + " chars)");
+        if (target.name.contains("syntax")) {
+            System.out.println("  wildcard: " + show(wildcardOf(p)[0]));
+        }
+        System.out.println("  expected: " + target.expected(t, p));
+        try {
+            System.out.println("  actual:   " + target.engine.run(t, p));
+        } catch (Exception | AssertionError | StackOverflowError e) {
+            System.out.println("  actual:   " + e);
+        }
+    }
+    
+    private static List<String[]> smaller(String text, String pattern) {
+        List<String[]> candidates = new ArrayList<>();
+        for (int size = Math.max(1, text.length() / 2); size >= 1; size /= 2) {
+            for (int i = 0; i + size <= text.length(); i += size) {
+                candidates.add(new String[] {text.substring(0, i) + text.substring(i + size), pattern});
+            }
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            candidates.add(new String[] {text, pattern.substring(0, i) + pattern.substring(i + 1)});
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) != 'a') {
+                candidates.add(new String[] {text.substring(0, i) + 'a' + text.substring(i + 1), pattern});
+            }
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) != 'a') {
+                candidates.add(new String[] {text, pattern.substring(0, i) + 'a' + pattern.substring(i + 1)});
+            }
+        }
+        return candidates;
+    }
+    
+    private String[] generate() {
+        String alphabet;
+        switch (random.nextInt(4)) {
+            case 0:
+                alphabet = "ab";
+                break;
+            case 1:
+                alphabet = "abcd";
+                break;
+            case 2:
+                alphabet = LETTERS;
+                break;
+            default:
+                alphabet = TRICKY;
+        }
+        int n = random.nextInt(8) == 0 ? random.nextInt(2000) : random.nextInt(40);
+        String text;
+        switch (random.nextInt(5)) {
+            case 0:
+                // Periodic, the worst case for naive and KMP-style shifts
+                text = repeat(randomString(alphabet, 1 + random.nextInt(3)), n);
+                break;
+            case 1:
+                text = fibonacci(n);
+                break;
+            default:
+                text = randomString(alphabet, n);
+        }
+        String pattern;
+        int kind = random.nextInt(6);
+        if (kind == 0 || text.isEmpty()) {
+            pattern = randomString(alphabet, random.nextInt(random.nextBoolean() ? 3 : 12));
+        } else if (kind == 1) {
+            // Longer than the text
+            pattern = randomString(alphabet, text.length() + 1 + random.nextInt(3));
+        } else if (kind == 2) {
+            // A period of the text with its last char changed
+            String period = text.substring(0, 1 + random.nextInt(Math.min(text.length(), 8)));
+            pattern = repeat(period, 1 + random.nextInt(Math.min(text.length(), 40)));
+            pattern = pattern.substring(0, pattern.length() - 1) + alphabet.charAt(random.nextInt(alphabet.length()));
+        } else {
+            // A piece of the text, so there is at least one match
+            int from = random.nextInt(text.length());
+            int to = from + random.nextInt(Math.min(text.length() - from, 64) + 1);
+            pattern = text.substring(from, to);
+        }
+        return new String[] {text, pattern};
+    }
+    
+    private String randomString(String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+    
+    private static String repeat(String unit, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(unit);
+        }
+        return sb.substring(0, length);
+    }
+    
+    private static String fibonacci(int length) {
+        String a = "a";
+        String b = "ab";
+        while (b.length() < length) {
+            String next = b + a;
+            a = b;
+            b = next;
+        }
+        return b.substring(0, length);
+    }
+    
+    private static String escapeWildcards(String pattern) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if ("\\?*[]()|".indexOf(c) >= 0) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+    
+    private static IntList endsToStarts(IntList ends, String pattern) {
+        IntList starts = new IntList(ends.size());
+        for (int i = 0; i < ends.size(); i++) {
+            starts.add(ends.get(i) - pattern.length());
+        }
+        return starts;
+    }
+    
+    private static IntList toIntList(List<Integer> values) {
+        IntList list = new IntList(values.size());
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+    
+    private static IntList toIntList(IntStream values) {
+        IntList list = new IntList();
+        values.forEach(list::add);
+        return list;
+    }
+    
+    // No surrogates, which a regex matches as whole code points, and short
+    // enough for a backtracking regex run from every offset
+    private static boolean isRegexFriendly(String s) {
+        if (s.length() > 100) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isSurrogate(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isWellFormed(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static byte[] latin1(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+    
+    private static String show(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x7F && c != '"' && c != '\\') {
+                sb.append(c);
+            } else {
+                sb.append(String.format("\\u%04X", (int) c));
+            }
+        }
+        return sb.append('"').toString();
+    }
+    
+    private void close() {
+        parallel.close();
+        service.close();
+        try {
+            Files.deleteIfExists(scratchFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Exports search cost per pattern through JMX
+ * ===========================================
+ * A SearchListener that adds every search to a SearchStatsMXBean for its
+ * pattern (and case mode), plus one bean with the totals:
+ *
+ *   PatternSearch:type=Total
+ *   PatternSearch:type=Pattern,case=SENSITIVE,pattern="needle"
+ *
+ * Only the first maxPatterns distinct patterns get a bean of their own;
+ * later ones are added to pattern="(other)" so a stream of one-off
+ * patterns cannot fill the MBean server. Closing it removes the listener
+ * and unregisters the beans.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class SearchJmx implements SearchListener, AutoCloseable {
+    
+    public static final String DOMAIN = "PatternSearch";
+    public static final int DEFAULT_MAX_PATTERNS = 256;
+    
+    // Longer patterns are cut in the ObjectName and told apart by their hash
+    private static final int MAX_NAME_CHARS = 64;
+    
+    private final MBeanServer server;
+    private final int maxPatterns;
+    private final Map<String, Stats> patterns = new ConcurrentHashMap<>();
+    private final Stats total;
+    private final Stats other;
+    private volatile boolean closed;
+    
+    private SearchJmx(MBeanServer server, int maxPatterns) throws JMException {
+        if (maxPatterns < 0) {
+            throw new IllegalArgumentException("Negative pattern limit: " + maxPatterns);
+        }
+        this.server = server;
+        this.maxPatterns = maxPatterns;
+        total = new Stats("(total)", new ObjectName(DOMAIN + ":type=Total"));
+        other = new Stats("(other)", new ObjectName(DOMAIN + ":type=Pattern,pattern=\"(other)\""));
+        server.registerMBean(total, total.name);
+        server.registerMBean(other, other.name);
+    }
+    
+    /**
+     * Registers the beans on the platform MBean server and starts listening.
+     */
+    public static SearchJmx install() throws JMException {
+        return install(ManagementFactory.getPlatformMBeanServer(), DEFAULT_MAX_PATTERNS);
+    }
+    
+    public static SearchJmx install(MBeanServer server, int maxPatterns) throws JMException {
+        SearchJmx jmx = new SearchJmx(server, maxPatterns);
+        PatternSearch.addListener(jmx);
+        return jmx;
+    }
+    
+    @Override
+    public void searchCompleted(CompiledPattern pattern, SearchMetrics metrics) {
+        total.add(metrics);
+        statsFor(pattern).add(metrics);
+    }
+    
+    private Stats statsFor(CompiledPattern pattern) {
+        String key = pattern.caseMode() + "\0" + pattern.pattern();
+        Stats stats = patterns.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        synchronized (patterns) {
+            stats = patterns.get(key);
+            if (stats != null) {
+                return stats;
+            }
+            if (closed || patterns.size() >= maxPatterns) {
+                return other;
+            }
+            try {
+                stats = new Stats(pattern.pattern(), objectName(pattern));
+                server.registerMBean(stats, stats.name);
+            } catch (JMException e) {
+                return other;
+            }
+            patterns.put(key, stats);
+            return stats;
+        }
+    }
+    
+    private static ObjectName objectName(CompiledPattern pattern) throws JMException {
+        String text = pattern.pattern();
+        if (text.length() > MAX_NAME_CHARS) {
+            text = text.substring(0, MAX_NAME_CHARS) + "...#" + Integer.toHexString(text.hashCode());
+        }
+        return new ObjectName(DOMAIN + ":type=Pattern,case=" + pattern.caseMode()
+            + ",pattern=" + ObjectName.quote(text));
+    }
+    
+    @Override
+    public void close() {
+        PatternSearch.removeListener(this);
+        synchronized (patterns) {
+            closed = true;
+            unregister(total);
+            unregister(other);
+            for (Stats stats : patterns.values()) {
+                unregister(stats);
+            }
+            patterns.clear();
+        }
+    }
+    
+    private void unregister(Stats stats) {
+        try {
+            server.unregisterMBean(stats.name);
+        } catch (JMException e) {
+            // Already unregistered by someone else
+        }
+    }
+    
+    private static final class Stats implements SearchStatsMXBean {
+        
+        final ObjectName name;
+        private final String pattern;
+        private final LongAdder searches = new LongAdder();
+        private final LongAdder comparisons = new LongAdder();
+        private final LongAdder windows = new LongAdder();
+        private final LongAdder shifts = new LongAdder();
+        private final LongAdder charsScanned = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder wallTimeNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        
+        Stats(String pattern, ObjectName name) {
+            this.pattern = pattern;
+            this.name = name;
+        }
+        
+        void add(SearchMetrics metrics) {
+            searches.add(metrics.searches());
+            comparisons.add(metrics.comparisons());
+            windows.add(metrics.windows());
+            shifts.add(metrics.shifts());
+            charsScanned.add(metrics.charsScanned());
+            matches.add(metrics.matches());
+            wallTimeNanos.add(metrics.wallTimeNanos());
+            allocatedBytes.add(metrics.allocatedBytes());
+        }
+        
+        @Override
+        public String getPattern() {
+            return pattern;
+        }
+        
+        @Override
+        public long getSearches() {
+            return searches.sum();
+        }
+        
+        @Override
+        public long getComparisons() {
+            return comparisons.sum();
+        }
+        
+        @Override
+        public long getWindows() {
+            return windows.sum();
+        }
+        
+        @Override
+        public long getShifts() {
+            return shifts.sum();
+        }
+        
+        @Override
+        public long getCharsScanned() {
+            return charsScanned.sum();
+        }
+        
+        @Override
+        public long getMatches() {
+            return matches.sum();
+        }
+        
+        @Override
+        public long getWallTimeNanos() {
+            return wallTimeNanos.sum();
+        }
+        
+        @Override
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+        
+        @Override
+        public void reset() {
+            searches.reset();
+            comparisons.reset();
+            windows.reset();
+            shifts.reset();
+            charsScanned.reset();
+            matches.reset();
+            wallTimeNanos.reset();
+            allocatedBytes.reset();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Callback for finished searches
+ * ==============================
+ * Register one with PatternSearch.addListener to see the cost of every
+ * full search made through a CompiledPattern (searchAll, findAll and
+ * count, including the static PatternSearch methods). Early-exit lookups
+ * such as indexOf are not reported. While no listener is registered the
+ * engine skips counting entirely.
+ */
+
+public interface SearchListener {
+    
+    /**
+     * Called on the searching thread after each search. The metrics hold
+     * the counters of that one search only and must not be kept after the
+     * call returns.
+     */
+    void searchCompleted(CompiledPattern pattern, SearchMetrics metrics);
+}
@@ -0,0 +1,49 @@
+/**
+ * Registry of SearchListeners
+ * ===========================
+ * Copy-on-write, so a search only pays for one volatile read to find out
+ * that nobody is listening.
+ */
+
+import java.util.Arrays;
+
+final class SearchListeners {
+    
+    private static final SearchListener[] NONE = new SearchListener[0];
+    
+    private static volatile SearchListener[] listeners = NONE;
+    
+    private SearchListeners() {
+    }
+    
+    static synchronized void add(SearchListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+        SearchListener[] current = listeners;
+        SearchListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+    
+    static synchronized boolean remove(SearchListener listener) {
+        SearchListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                SearchListener[] updated = new SearchListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the registered listeners; the array must not be modified.
+     */
+    static SearchListener[] get() {
+        return listeners;
+    }
+}
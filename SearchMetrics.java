@@ -0,0 +1,133 @@
+/**
+ * Work counters for searches
+ * ==========================
+ * Pass an instance to CompiledPattern.findAll to have the engine count
+ * the work it does, or register a SearchListener to get one per search.
+ * Searches without either count nothing. Counters add up over every
+ * search they are passed to; an instance is not thread-safe.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public final class SearchMetrics {
+    
+    // Per-thread allocation counter, or null when the JVM does not have one
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+    
+    // Updated directly by the finders' counting paths
+    long comparisons;
+    long windows;
+    long shifts;
+    long charsScanned;
+    long matches;
+    
+    // Updated by CompiledPattern around each counted search
+    long searches;
+    long wallTimeNanos;
+    long allocatedBytes;
+    
+    /**
+     * Character comparisons (for Rabin-Karp, also hash comparisons).
+     */
+    public long comparisons() {
+        return comparisons;
+    }
+    
+    /**
+     * Alignments of the pattern against the text that were examined.
+     */
+    public long windows() {
+        return windows;
+    }
+    
+    /**
+     * Total distance the pattern was moved along the text. Divided by
+     * windows() it gives the average shift.
+     */
+    public long shifts() {
+        return shifts;
+    }
+    
+    /**
+     * Size of the text ranges searched.
+     */
+    public long charsScanned() {
+        return charsScanned;
+    }
+    
+    public long matches() {
+        return matches;
+    }
+    
+    public long searches() {
+        return searches;
+    }
+    
+    public long wallTimeNanos() {
+        return wallTimeNanos;
+    }
+    
+    /**
+     * Bytes allocated by the searching thread during the searches, or 0 if
+     * the JVM cannot measure it.
+     */
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    /**
+     * Adds the counters of other to this instance.
+     */
+    public void add(SearchMetrics other) {
+        comparisons += other.comparisons;
+        windows += other.windows;
+        shifts += other.shifts;
+        charsScanned += other.charsScanned;
+        matches += other.matches;
+        searches += other.searches;
+        wallTimeNanos += other.wallTimeNanos;
+        allocatedBytes += other.allocatedBytes;
+    }
+    
+    public void reset() {
+        comparisons = 0;
+        windows = 0;
+        shifts = 0;
+        charsScanned = 0;
+        matches = 0;
+        searches = 0;
+        wallTimeNanos = 0;
+        allocatedBytes = 0;
+    }
+    
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if
+     * that is not available.
+     */
+    static long threadAllocatedBytes() {
+        return ALLOCATIONS == null ? -1 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+    }
+    
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+                if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                    return counter;
+                }
+            }
+        } catch (LinkageError | SecurityException e) {
+            // jdk.management is not present; allocations are not measured
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("SearchMetrics[searches=%d, comparisons=%d, windows=%d, shifts=%d, "
+            + "charsScanned=%d, matches=%d, wallTimeNanos=%d, allocatedBytes=%d]",
+            searches, comparisons, windows, shifts, charsScanned, matches, wallTimeNanos, allocatedBytes);
+    }
+}
@@ -0,0 +1,541 @@
+/**
+ * Concurrent search over many documents
+ * =====================================
+ * Each document of a request is searched on its own thread: a virtual
+ * thread when the JVM has them (Java 21+), otherwise a thread from a
+ * small fixed pool. Compiled patterns are immutable, so one is shared by
+ * all of them.
+ * 
+ * - Results go to a ResultListener, one call at a time per request, or
+ *   to the subscriber of publisher().
+ * - A request can be cancelled, and can have a deadline after which it
+ *   ends with DEADLINE_EXCEEDED. Documents are searched in slices so that
+ *   both take effect within about a millisecond.
+ * - Documents are only loaded while the memory they hold stays under
+ *   maxInFlightBytes. Texts count 2 bytes per char. A file counts its
+ *   length plus 2 bytes per byte while it is read and decoded (UTF-8
+ *   never gives more chars than bytes), then 2 bytes per decoded char.
+ *   A single larger document runs on its own.
+ */
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class SearchService implements AutoCloseable {
+    
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 256L << 20;
+    
+    // Cancellation and deadlines are checked between slices
+    private static final int SLICE_CHARS = 1 << 20;
+    
+    // How long a publisher waits for demand before checking whether the
+    // request has ended
+    private static final long OFFER_WAIT_MILLIS = 10;
+    
+    public enum Status { RUNNING, COMPLETED, CANCELLED, DEADLINE_EXCEEDED }
+    
+    /**
+     * Receives the results of one request. Calls for the same request never
+     * overlap, so implementations do not need to be thread-safe. A listener
+     * that blocks only holds back the thread delivering to it: the other
+     * documents' results queue up behind it, and cancellation and deadlines
+     * still end the request (onComplete follows once the call returns).
+     */
+    public interface ResultListener {
+        
+        /**
+         * One call per document that was searched (or failed to load).
+         */
+        void onResult(Result result);
+        
+        /**
+         * Called once, last, with COMPLETED, CANCELLED or DEADLINE_EXCEEDED.
+         */
+        void onComplete(Status status);
+    }
+    
+    /**
+     * A text or a file to search. Files are decoded as UTF-8 and their
+     * offsets are char offsets into the decoded text.
+     */
+    public static final class Document {
+        private final String name;
+        private final String text;
+        private final Path file;
+        
+        private Document(String name, String text, Path file) {
+            this.name = name;
+            this.text = text;
+            this.file = file;
+        }
+        
+        public static Document of(String name, String text) {
+            if (text == null) {
+                throw new NullPointerException("text");
+            }
+            return new Document(name, text, null);
+        }
+        
+        public static Document of(Path file) {
+            return new Document(file.toString(), null, file);
+        }
+        
+        public String name() {
+            return name;
+        }
+        
+        // The most memory the document holds at once: for a file, the
+        // bytes read plus the String they are decoded into
+        long size() throws IOException {
+            return text != null ? 2L * text.length() : 3 * Files.size(file);
+        }
+        
+        String load() throws IOException {
+            return text != null ? text : new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+    
+    /**
+     * The matches in one document, or the error that stopped it.
+     */
+    public static final class Result {
+        private final Document document;
+        private final IntList matches;
+        private final IOException error;
+        private final long elapsedNanos;
+        
+        Result(Document document, IntList matches, IOException error, long elapsedNanos) {
+            this.document = document;
+            this.matches = matches;
+            this.error = error;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        public Document document() {
+            return document;
+        }
+        
+        /**
+         * The offsets found, or null if the document could not be read.
+         */
+        public IntList matches() {
+            return matches;
+        }
+        
+        /**
+         * Why the document could not be read, or null. Failures other than
+         * I/O errors come wrapped, as the cause.
+         */
+        public IOException error() {
+            return error;
+        }
+        
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        @Override
+        public String toString() {
+            return document + ": " + (error != null ? error : matches);
+        }
+    }
+    
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final ScheduledExecutorService timer;
+    private final long maxInFlightBytes;
+    private final Set<Request> active = ConcurrentHashMap.newKeySet();
+    
+    // Guarded by "this"
+    private long inFlightBytes;
+    
+    public SearchService() {
+        this(DEFAULT_MAX_IN_FLIGHT_BYTES);
+    }
+    
+    public SearchService(long maxInFlightBytes) {
+        if (maxInFlightBytes < 1) {
+            throw new IllegalArgumentException("In-flight limit must be positive: " + maxInFlightBytes);
+        }
+        this.maxInFlightBytes = maxInFlightBytes;
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null
+            ? virtual
+            : Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                daemon("search-service"));
+        timer = Executors.newSingleThreadScheduledExecutor(daemon("search-deadline"));
+    }
+    
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively
+     * so the class still compiles and runs on Java 17.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        return task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    public long maxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+    
+    /**
+     * Runs any task on the service's threads. Used by the GUI for work
+     * that is not a document search.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+    
+    public Request search(List<Document> documents, String pattern, Duration deadline,
+                          ResultListener listener) {
+        return search(documents, PatternSearch.cached(pattern, null, CaseMode.SENSITIVE), deadline, listener);
+    }
+    
+    /**
+     * Starts searching every document and returns at once. The deadline
+     * may be null for none.
+     */
+    public Request search(List<Document> documents, CompiledPattern pattern, Duration deadline,
+                          ResultListener listener) {
+        if (pattern == null) {
+            throw new NullPointerException("pattern");
+        }
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+        Request request = new Request(pattern, listener, documents.size());
+        start(request, documents, deadline);
+        return request;
+    }
+    
+    private void start(Request request, List<Document> documents, Duration deadline) {
+        active.add(request);
+        if (deadline != null) {
+            request.deadlineTask = timer.schedule(() -> request.finish(Status.DEADLINE_EXCEEDED),
+                Math.max(0, deadline.toNanos()), TimeUnit.NANOSECONDS);
+        }
+        if (documents.isEmpty()) {
+            request.finish(Status.COMPLETED);
+        }
+        for (Document document : documents) {
+            executor.execute(() -> request.run(document));
+        }
+    }
+    
+    /**
+     * The results of a request as a Flow.Publisher. Every subscription
+     * starts its own request; while the subscriber has no demand, one
+     * thread waits for it and the other results queue up, and cancelling
+     * the subscription cancels the request.
+     * A request that does not complete ends with onError, passing a
+     * CancellationException or a TimeoutException.
+     */
+    public Flow.Publisher<Result> publisher(List<Document> documents, CompiledPattern pattern,
+                                            Duration deadline) {
+        if (pattern == null) {
+            throw new NullPointerException("pattern");
+        }
+        return subscriber -> {
+            SubmissionPublisher<Result> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            PublishingListener listener = new PublishingListener(publisher);
+            Request request = new Request(pattern, listener, documents.size());
+            listener.request = request;
+            start(request, documents, deadline);
+        };
+    }
+    
+    private static final class PublishingListener implements ResultListener {
+        
+        private final SubmissionPublisher<Result> publisher;
+        Request request;
+        
+        PublishingListener(SubmissionPublisher<Result> publisher) {
+            this.publisher = publisher;
+        }
+        
+        @Override
+        public void onResult(Result result) {
+            // Waits while the subscriber's buffer is full, but gives up once
+            // the request has been cancelled or timed out
+            while (publisher.offer(result, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS, null) < 0) {
+                if (request.isDone() && request.status() != Status.COMPLETED) {
+                    return;
+                }
+            }
+            if (publisher.getNumberOfSubscribers() == 0) {
+                request.cancel();
+            }
+        }
+        
+        @Override
+        public void onComplete(Status status) {
+            if (status == Status.COMPLETED) {
+                publisher.close();
+            } else if (status == Status.CANCELLED) {
+                publisher.closeExceptionally(new CancellationException("Search cancelled"));
+            } else {
+                publisher.closeExceptionally(new TimeoutException("Search deadline exceeded"));
+            }
+        }
+    }
+    
+    // Waits until the document fits in the byte budget or the request ends
+    private synchronized boolean acquire(long bytes, Request request) throws InterruptedException {
+        while (inFlightBytes > 0 && inFlightBytes + bytes > maxInFlightBytes) {
+            if (request.status() != Status.RUNNING) {
+                return false;
+            }
+            wait(10);
+        }
+        inFlightBytes += bytes;
+        return true;
+    }
+    
+    private synchronized void release(long bytes) {
+        inFlightBytes -= bytes;
+        notifyAll();
+    }
+    
+    /**
+     * Cancels every running request and stops the threads.
+     */
+    @Override
+    public void close() {
+        for (Request request : active) {
+            request.cancel();
+        }
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+    
+    /**
+     * Handle on a running search.
+     */
+    public final class Request {
+        private final CompiledPattern pattern;
+        private final ResultListener listener;
+        private final AtomicInteger remaining;
+        private final AtomicReference<Status> status = new AtomicReference<>(Status.RUNNING);
+        private volatile ScheduledFuture<?> deadlineTask;
+        
+        // Listener calls waiting to be made, one thread at a time: whoever
+        // raises pendingEvents from 0 makes them until it is back to 0
+        private final ConcurrentLinkedQueue<Runnable> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingEvents = new AtomicInteger();
+        
+        // Set, under "this", once onComplete has returned
+        private boolean ended;
+        
+        Request(CompiledPattern pattern, ResultListener listener, int documents) {
+            this.pattern = pattern;
+            this.listener = listener;
+            this.remaining = new AtomicInteger(documents);
+        }
+        
+        public Status status() {
+            return status.get();
+        }
+        
+        public boolean isDone() {
+            return status.get() != Status.RUNNING;
+        }
+        
+        /**
+         * Stops the search; results not yet delivered are dropped.
+         */
+        public void cancel() {
+            finish(Status.CANCELLED);
+        }
+        
+        /**
+         * Waits until the listener's onComplete has returned and returns how
+         * the request ended, or RUNNING if the timeout passed first.
+         */
+        public synchronized Status await(Duration timeout) throws InterruptedException {
+            long end = System.nanoTime() + timeout.toNanos();
+            while (!ended) {
+                long left = end - System.nanoTime();
+                if (left <= 0) {
+                    return Status.RUNNING;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+            return status.get();
+        }
+        
+        private void run(Document document) {
+            if (isDone()) {
+                return;
+            }
+            long start = System.nanoTime();
+            long bytes;
+            try {
+                bytes = document.size();
+            } catch (IOException e) {
+                deliver(new Result(document, null, e, System.nanoTime() - start));
+                return;
+            } catch (RuntimeException | Error e) {
+                fail(document, e, start);
+                return;
+            }
+            try {
+                if (!acquire(bytes, this)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                String text = document.load();
+                // The bytes read from a file are garbage now; keep only the text
+                long held = 2L * text.length();
+                if (held < bytes) {
+                    release(bytes - held);
+                    bytes = held;
+                }
+                IntList matches = searchSliced(text);
+                if (matches != null) {
+                    deliver(new Result(document, matches, null, System.nanoTime() - start));
+                }
+            } catch (IOException e) {
+                deliver(new Result(document, null, e, System.nanoTime() - start));
+            } catch (RuntimeException | Error e) {
+                fail(document, e, start);
+            } finally {
+                release(bytes);
+            }
+        }
+        
+        /**
+         * Delivers a failed result for anything else that went wrong with the
+         * document, such as the OutOfMemoryError of reading a file over 2 GB,
+         * so that the request still completes. Errors are rethrown afterwards.
+         */
+        private void fail(Document document, Throwable failure, long start) {
+            deliver(new Result(document, null, new IOException(failure), System.nanoTime() - start));
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+        
+        // Returns null if the request ended before the text was finished
+        private IntList searchSliced(String text) {
+            IntList matches = new IntList();
+            int n = text.length();
+            int m = pattern.length();
+            int start = 0;
+            do {
+                if (isDone()) {
+                    return null;
+                }
+                int end = (int) Math.min((long) start + SLICE_CHARS, n);
+                int to = end == n ? n : (int) Math.min((long) end + m - 1, n);
+                pattern.findAll(text, start, to, matches, null);
+                start = end;
+            } while (start < n);
+            return matches;
+        }
+        
+        private void deliver(Result result) {
+            if (isDone()) {
+                return;
+            }
+            post(() -> {
+                // COMPLETED is only set after the last result was posted
+                Status now = status.get();
+                if (now == Status.RUNNING || now == Status.COMPLETED) {
+                    listener.onResult(result);
+                }
+            });
+            if (remaining.decrementAndGet() == 0) {
+                finish(Status.COMPLETED);
+            }
+        }
+        
+        /**
+         * Ends the request. Never waits for the listener, so the deadline
+         * timer cannot be held up by a listener that blocks.
+         */
+        private void finish(Status outcome) {
+            if (!status.compareAndSet(Status.RUNNING, outcome)) {
+                return;
+            }
+            active.remove(this);
+            ScheduledFuture<?> task = deadlineTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+            post(() -> {
+                try {
+                    listener.onComplete(outcome);
+                } finally {
+                    synchronized (this) {
+                        ended = true;
+                        notifyAll();
+                    }
+                }
+            });
+        }
+        
+        private void post(Runnable event) {
+            events.add(event);
+            if (pendingEvents.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                try {
+                    events.poll().run();
+                } catch (RuntimeException | Error e) {
+                    // Keep draining; the other events belong to the request too
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            } while (pendingEvents.decrementAndGet() != 0);
+        }
+    }
+}
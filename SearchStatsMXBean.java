@@ -0,0 +1,32 @@
+/**
+ * JMX view of the search cost for one pattern
+ * ===========================================
+ * Registered by SearchJmx. All counters are totals since registration
+ * (or the last reset) over every search for the pattern.
+ */
+
+public interface SearchStatsMXBean {
+    
+    /**
+     * The pattern, or "(total)" / "(other)" for the aggregate beans.
+     */
+    String getPattern();
+    
+    long getSearches();
+    
+    long getComparisons();
+    
+    long getWindows();
+    
+    long getShifts();
+    
+    long getCharsScanned();
+    
+    long getMatches();
+    
+    long getWallTimeNanos();
+    
+    long getAllocatedBytes();
+    
+    void reset();
+}
@@ -0,0 +1,237 @@
+/**
+ * Startup time of the GUI, with and without an AppCDS archive
+ * ============================================================
+ * java [JavaFX options] StartupBenchmark [--runs n] [--archive file] [--rebuild] [--main class [args...]]
+ * 
+ * Launches the GUI in fresh JVMs, with the same JVM options and class path
+ * as this one, and reports the time from launching the process to the
+ * first frame: PatternSearchGUI prints a line when it has been shown if
+ * -Dpatternsearch.startup is set, and =exit makes it quit right after.
+ * 
+ * The first launch is a training run with -XX:ArchiveClassesAtExit, which
+ * writes a dynamic AppCDS archive of every class loaded up to the first
+ * frame (target/pattern-search-gui.jsa unless --archive says otherwise).
+ * It is skipped when the archive already exists, unless --rebuild is
+ * given; an archive only fits the JDK and class path it was made with.
+ * The timed runs then alternate between plain startup and startup with
+ * -XX:SharedArchiveFile, and the medians are compared.
+ * 
+ * With --main, any other class is timed instead, up to its exit.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public final class StartupBenchmark {
+    
+    public static final int DEFAULT_RUNS = 10;
+    public static final String DEFAULT_ARCHIVE = "target/pattern-search-gui.jsa";
+    
+    private static final String FIRST_FRAME = "Startup: first frame";
+    private static final long TIMEOUT_SECONDS = 120;
+    
+    // Options of this JVM that must not be passed on to the runs
+    private static final List<String> DROPPED_OPTIONS = List.of(
+        "-XX:SharedArchiveFile", "-XX:ArchiveClassesAtExit", "-Xshare", "-agentlib", "-javaagent",
+        "-Dpatternsearch.startup");
+    
+    /** One launch: wall time to the first frame (or exit), and the time spent in start(). */
+    private static final class Run {
+        final double millis;
+        final double startMillis;
+        
+        Run(double millis, double startMillis) {
+            this.millis = millis;
+            this.startMillis = startMillis;
+        }
+    }
+    
+    private final List<String> jvmOptions;
+    private final List<String> program;
+    
+    private StartupBenchmark(List<String> program) {
+        this.jvmOptions = inheritedOptions();
+        this.program = program;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int runs = DEFAULT_RUNS;
+        Path archive = Paths.get(DEFAULT_ARCHIVE);
+        boolean rebuild = false;
+        List<String> program = new ArrayList<>(List.of("PatternSearchGUI"));
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--archive":
+                    archive = Paths.get(args[++i]);
+                    break;
+                case "--rebuild":
+                    rebuild = true;
+                    break;
+                case "--main":
+                    program = new ArrayList<>(Arrays.asList(args).subList(i + 1, args.length));
+                    i = args.length;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Usage: java StartupBenchmark [--runs n] [--archive file] [--rebuild] "
+                        + "[--main class [args...]]");
+                    System.exit(2);
+            }
+        }
+        if (runs < 1 || program.isEmpty()) {
+            throw new IllegalArgumentException("need at least one run and a main class");
+        }
+        // CDS refuses class path directories that are not empty
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (Files.isDirectory(Paths.get(entry))) {
+                System.err.println("AppCDS only archives classes from jars, but the class path has " + entry
+                    + "; run mvn package and use -cp target/pattern-search-1.0.jar");
+                System.exit(2);
+            }
+        }
+        StartupBenchmark benchmark = new StartupBenchmark(program);
+        benchmark.train(archive, rebuild);
+        benchmark.compare(archive, runs);
+    }
+    
+    private void train(Path archive, boolean rebuild) throws IOException, InterruptedException {
+        if (Files.exists(archive) && !rebuild) {
+            System.out.printf("Using existing archive %s (%.1f MB)%n", archive, Files.size(archive) / 1e6);
+            return;
+        }
+        Path parent = archive.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(archive);
+        Run run = launch("-XX:ArchiveClassesAtExit=" + archive);
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("the training run did not write " + archive);
+        }
+        System.out.printf("Training run wrote %s (%.1f MB) in %.0f ms%n", archive, Files.size(archive) / 1e6,
+            run.millis);
+    }
+    
+    private void compare(Path archive, int runs) throws IOException, InterruptedException {
+        // Alternated so that both sides see the same disk cache and load
+        List<Run> plain = new ArrayList<>();
+        List<Run> shared = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            plain.add(launch(null));
+            shared.add(launch("-XX:SharedArchiveFile=" + archive));
+        }
+        String until = program.get(0).equals("PatternSearchGUI") ? "to first frame" : "to exit";
+        System.out.printf("%n%-16s %10s %10s %12s   (%d runs, %s)%n", "", "median", "min", "in start()", runs,
+            until);
+        double plainMedian = report("default CDS", plain);
+        double sharedMedian = report("AppCDS archive", shared);
+        System.out.printf("%nThe archive saves %.0f ms (%.0f%%) %s%n", plainMedian - sharedMedian,
+            100 * (plainMedian - sharedMedian) / plainMedian, until);
+    }
+    
+    private static double report(String name, List<Run> runs) {
+        double[] millis = runs.stream().mapToDouble(r -> r.millis).sorted().toArray();
+        double[] start = runs.stream().mapToDouble(r -> r.startMillis).filter(t -> t >= 0).sorted().toArray();
+        double median = median(millis);
+        System.out.printf("%-16s %7.0f ms %7.0f ms %12s%n", name, median, millis[0],
+            start.length == 0 ? "-" : String.format("%.1f ms", median(start)));
+        return median;
+    }
+    
+    private static double median(double[] sorted) {
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+    
+    /**
+     * Starts one JVM and waits for its first-frame line, or for it to exit
+     * when it never prints one.
+     */
+    private Run launch(String cdsOption) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(javaCommand());
+        command.addAll(jvmOptions);
+        if (cdsOption != null) {
+            command.add(cdsOption);
+        }
+        command.add("-Dpatternsearch.startup=exit");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.addAll(program);
+        
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        long started = System.nanoTime();
+        Process process = builder.start();
+        double millis = -1;
+        double startMillis = -1;
+        ArrayDeque<String> tail = new ArrayDeque<>();
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (millis < 0 && line.startsWith(FIRST_FRAME)) {
+                    millis = (System.nanoTime() - started) / 1e6;
+                    startMillis = parseStartMillis(line);
+                }
+                tail.addLast(line);
+                if (tail.size() > 20) {
+                    tail.removeFirst();
+                }
+            }
+        }
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("no exit within " + TIMEOUT_SECONDS + " s: " + command);
+        }
+        if (millis < 0) {
+            millis = (System.nanoTime() - started) / 1e6;
+        }
+        if (process.exitValue() != 0) {
+            System.err.println(String.join(" ", command));
+            tail.forEach(System.err::println);
+            throw new IllegalStateException("exit status " + process.exitValue());
+        }
+        return new Run(millis, startMillis);
+    }
+    
+    // "Startup: first frame 812 ms after JVM start, 143.5 ms in start()"
+    private static double parseStartMillis(String line) {
+        int end = line.lastIndexOf(" ms in start()");
+        int begin = line.lastIndexOf(' ', end - 1) + 1;
+        try {
+            return end < 0 ? -1 : Double.parseDouble(line.substring(begin, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static String javaCommand() {
+        return ProcessHandle.current().info().command()
+            .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    }
+    
+    private static List<String> inheritedOptions() {
+        List<String> options = new ArrayList<>();
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (DROPPED_OPTIONS.stream().noneMatch(option::startsWith)) {
+                options.add(option);
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Push-style matcher for unbounded input
+ * ======================================
+ * Feed the input in chunks as it arrives; the Knuth-Morris-Pratt state is
+ * carried from one chunk to the next, so a match split across chunks is
+ * still found. Every match is reported to the listener as soon as its last
+ * symbol arrives, as an absolute offset from the start of the stream.
+ * 
+ * Memory is O(pattern length) however long the stream is. A matcher works
+ * either on bytes (forBytes) or on chars (forChars); offsets are counted
+ * in the same unit. Instances are not thread-safe.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongConsumer;
+
+public final class StreamMatcher {
+    
+    private static final int BUFFER_SIZE = 8192;
+    
+    // Pattern symbols: unsigned bytes or chars
+    private final int[] pattern;
+    private final int[] failure;
+    private final boolean bytes;
+    private final LongConsumer listener;
+    
+    // Number of pattern symbols currently matched
+    private int state;
+    
+    // Symbols consumed so far
+    private long position;
+    
+    private StreamMatcher(int[] pattern, boolean bytes, LongConsumer listener) {
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Pattern is empty");
+        }
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+        this.pattern = pattern;
+        this.failure = buildFailure(pattern);
+        this.bytes = bytes;
+        this.listener = listener;
+    }
+    
+    public static StreamMatcher forBytes(byte[] pattern, LongConsumer listener) {
+        int[] symbols = new int[pattern.length];
+        for (int i = 0; i < pattern.length; i++) {
+            symbols[i] = pattern[i] & 0xFF;
+        }
+        return new StreamMatcher(symbols, true, listener);
+    }
+    
+    /**
+     * Byte matcher for the UTF-8 encoding of the pattern.
+     */
+    public static StreamMatcher forBytes(String pattern, LongConsumer listener) {
+        return forBytes(pattern.getBytes(StandardCharsets.UTF_8), listener);
+    }
+    
+    public static StreamMatcher forChars(String pattern, LongConsumer listener) {
+        int[] symbols = new int[pattern.length()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = pattern.charAt(i);
+        }
+        return new StreamMatcher(symbols, false, listener);
+    }
+    
+    private static int[] buildFailure(int[] pattern) {
+        int[] failure = new int[pattern.length];
+        int k = 0;
+        for (int j = 1; j < pattern.length; j++) {
+            while (k > 0 && pattern[j] != pattern[k]) {
+                k = failure[k - 1];
+            }
+            if (pattern[j] == pattern[k]) {
+                k++;
+            }
+            failure[j] = k;
+        }
+        return failure;
+    }
+    
+    /**
+     * Symbols consumed so far, which is also the offset of the next one.
+     */
+    public long position() {
+        return position;
+    }
+    
+    /**
+     * Forgets any partial match and restarts offsets at 0.
+     */
+    public void reset() {
+        state = 0;
+        position = 0;
+    }
+    
+    public void feed(byte[] buffer, int offset, int length) {
+        requireBytes(true);
+        for (int i = offset; i < offset + length; i++) {
+            step(buffer[i] & 0xFF);
+        }
+    }
+    
+    /**
+     * Consumes the buffer's remaining bytes and advances its position.
+     */
+    public void feed(ByteBuffer buffer) {
+        requireBytes(true);
+        while (buffer.hasRemaining()) {
+            step(buffer.get() & 0xFF);
+        }
+    }
+    
+    public void feed(char[] buffer, int offset, int length) {
+        requireBytes(false);
+        for (int i = offset; i < offset + length; i++) {
+            step(buffer[i]);
+        }
+    }
+    
+    public void feed(CharSequence chunk) {
+        requireBytes(false);
+        for (int i = 0; i < chunk.length(); i++) {
+            step(chunk.charAt(i));
+        }
+    }
+    
+    private void step(int symbol) {
+        int k = state;
+        while (k > 0 && symbol != pattern[k]) {
+            k = failure[k - 1];
+        }
+        if (symbol == pattern[k]) {
+            k++;
+        }
+        position++;
+        if (k == pattern.length) {
+            listener.accept(position - k);
+            k = failure[k - 1];
+        }
+        state = k;
+    }
+    
+    private void requireBytes(boolean expected) {
+        if (bytes != expected) {
+            throw new IllegalStateException(bytes
+                ? "This matcher counts bytes; create one with forChars to feed chars"
+                : "This matcher counts chars; create one with forBytes to feed bytes");
+        }
+    }
+    
+    /**
+     * Feeds the whole stream and returns the number of bytes read. The
+     * stream is not closed.
+     */
+    public long consume(InputStream in) throws IOException {
+        requireBytes(true);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+    
+    /**
+     * Feeds the whole reader and returns the number of chars read. The
+     * reader is not closed.
+     */
+    public long consume(Reader in) throws IOException {
+        requireBytes(false);
+        char[] buffer = new char[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+    
+    /**
+     * Feeds the channel until end of stream and returns the number of bytes
+     * read. The channel is not closed. A non-blocking channel that has no
+     * data yet is simply polled again, so callers of selectable channels
+     * should feed() from their own selector loop instead.
+     */
+    public long consume(ReadableByteChannel channel) throws IOException {
+        requireBytes(true);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long total = 0;
+        int read;
+        while ((read = channel.read(buffer)) != -1) {
+            buffer.flip();
+            feed(buffer);
+            buffer.clear();
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * Suffix-array index over a static text
+ * =====================================
+ * Built once in linear time (SA-IS), then every query is a binary search
+ * over the sorted suffixes: O(m log n) character comparisons, however
+ * large the text and however often it is queried. The LCP array (longest
+ * common prefix of neighbouring suffixes) is kept alongside.
+ * 
+ * save() writes the text, suffix array and LCP array to one file, and
+ * open() maps that file back read-only, so a restarted process can query
+ * it straight away without rebuilding and without reading it into the
+ * heap. File layout, all little-endian:
+ * 
+ *   int magic "PSSA", int version, int n, int 0
+ *   char text[n], padding to a multiple of 4 bytes
+ *   int sa[n], int lcp[n]
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public final class SuffixArrayIndex {
+    
+    private static final int MAGIC = 0x41535350; // "PSSA" in little-endian order
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    
+    // A mapped buffer is limited to 2 GB, so the arrays are split into
+    // chunks of 2^28 elements (1 GB of ints)
+    private static final int CHUNK_SHIFT = 28;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    
+    private final int n;
+    private final CharBuffer[] text;
+    private final IntBuffer[] sa;
+    private final IntBuffer[] lcp;
+    
+    private SuffixArrayIndex(int n, CharBuffer[] text, IntBuffer[] sa, IntBuffer[] lcp) {
+        this.n = n;
+        this.text = text;
+        this.sa = sa;
+        this.lcp = lcp;
+    }
+    
+    /**
+     * Builds the index in memory: about 10 bytes per character once built,
+     * plus roughly 30 bytes per character while building.
+     */
+    public static SuffixArrayIndex build(String text) {
+        int[] sa = SuffixSorter.suffixArray(text);
+        int[] lcp = SuffixSorter.lcpArray(text, sa);
+        int n = text.length();
+        CharBuffer[] chars = new CharBuffer[chunkCount(n)];
+        IntBuffer[] saChunks = new IntBuffer[chars.length];
+        IntBuffer[] lcpChunks = new IntBuffer[chars.length];
+        for (int c = 0; c < chars.length; c++) {
+            int start = c << CHUNK_SHIFT;
+            int end = (int) Math.min((long) start + CHUNK_MASK + 1, n);
+            chars[c] = CharBuffer.wrap(text, start, end).slice();
+            saChunks[c] = IntBuffer.wrap(sa, start, end - start).slice();
+            lcpChunks[c] = IntBuffer.wrap(lcp, start, end - start).slice();
+        }
+        return new SuffixArrayIndex(n, chars, saChunks, lcpChunks);
+    }
+    
+    /**
+     * Maps an index written by save(). Nothing is read up front; pages are
+     * loaded by the OS as queries touch them.
+     */
+    public static SuffixArrayIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("Not a suffix array index: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported index version " + version + ": " + file);
+            }
+            int n = header.getInt();
+            long textBytes = align4(2L * n);
+            long expected = HEADER_BYTES + textBytes + 8L * n;
+            if (n < 0 || channel.size() != expected) {
+                throw new IOException("Truncated or corrupt index (" + channel.size()
+                    + " bytes, expected " + expected + "): " + file);
+            }
+            
+            int chunks = chunkCount(n);
+            CharBuffer[] chars = new CharBuffer[chunks];
+            IntBuffer[] saChunks = new IntBuffer[chunks];
+            IntBuffer[] lcpChunks = new IntBuffer[chunks];
+            long saOffset = HEADER_BYTES + textBytes;
+            long lcpOffset = saOffset + 4L * n;
+            for (int c = 0; c < chunks; c++) {
+                long start = (long) c << CHUNK_SHIFT;
+                long length = Math.min(CHUNK_MASK + 1L, n - start);
+                chars[c] = map(channel, HEADER_BYTES + 2 * start, 2 * length).asCharBuffer();
+                saChunks[c] = map(channel, saOffset + 4 * start, 4 * length).asIntBuffer();
+                lcpChunks[c] = map(channel, lcpOffset + 4 * start, 4 * length).asIntBuffer();
+            }
+            return new SuffixArrayIndex(n, chars, saChunks, lcpChunks);
+        }
+    }
+    
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Writes the index (text included) in the format read by open().
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0);
+            for (int i = 0; i < n; i++) {
+                if (buffer.remaining() < 2) {
+                    drain(channel, buffer);
+                }
+                buffer.putChar(charAt(i));
+            }
+            if ((n & 1) != 0) {
+                if (buffer.remaining() < 2) {
+                    drain(channel, buffer);
+                }
+                buffer.putChar('\0');
+            }
+            for (IntBuffer[] array : new IntBuffer[][] {sa, lcp}) {
+                for (int i = 0; i < n; i++) {
+                    if (buffer.remaining() < 4) {
+                        drain(channel, buffer);
+                    }
+                    buffer.putInt(get(array, i));
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+    
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    public int length() {
+        return n;
+    }
+    
+    /**
+     * Start of the suffix with the given rank in sorted order.
+     */
+    public int suffix(int rank) {
+        return get(sa, rank);
+    }
+    
+    /**
+     * Length of the common prefix of the suffixes of rank - 1 and rank
+     * (0 for rank 0).
+     */
+    public int lcp(int rank) {
+        return get(lcp, rank);
+    }
+    
+    /**
+     * Number of (overlapping) occurrences of the pattern.
+     */
+    public int count(String pattern) {
+        if (pattern.isEmpty()) {
+            return n + 1;
+        }
+        return upperBound(pattern) - lowerBound(pattern);
+    }
+    
+    public boolean contains(String pattern) {
+        return count(pattern) > 0;
+    }
+    
+    /**
+     * Returns every occurrence in increasing order, the same offsets as
+     * PatternSearch.search on the indexed text.
+     */
+    public IntList search(String pattern) {
+        IntList matches = new IntList();
+        forEachOccurrence(pattern, matches);
+        int[] sorted = matches.toArray();
+        Arrays.sort(sorted);
+        matches.clear();
+        for (int offset : sorted) {
+            matches.add(offset);
+        }
+        return matches;
+    }
+    
+    /**
+     * Reports every occurrence in suffix order (not sorted by offset),
+     * which saves the sort when the order does not matter.
+     */
+    public void forEachOccurrence(String pattern, IntConsumer sink) {
+        if (pattern.isEmpty()) {
+            for (int i = 0; i <= n; i++) {
+                sink.accept(i);
+            }
+            return;
+        }
+        int end = upperBound(pattern);
+        for (int rank = lowerBound(pattern); rank < end; rank++) {
+            sink.accept(get(sa, rank));
+        }
+    }
+    
+    /**
+     * The longest substring that occurs at least twice, read off the LCP
+     * array; empty if no character repeats.
+     */
+    public String longestRepeatedSubstring() {
+        int best = 0;
+        int bestRank = 0;
+        for (int rank = 1; rank < n; rank++) {
+            int length = get(lcp, rank);
+            if (length > best) {
+                best = length;
+                bestRank = rank;
+            }
+        }
+        StringBuilder repeat = new StringBuilder(best);
+        int start = best == 0 ? 0 : get(sa, bestRank);
+        for (int i = 0; i < best; i++) {
+            repeat.append(charAt(start + i));
+        }
+        return repeat.toString();
+    }
+    
+    /**
+     * Bytes used by the text, suffix array and LCP array.
+     */
+    public long sizeInBytes() {
+        return 2L * n + 8L * n;
+    }
+    
+    // First rank whose suffix is >= pattern, comparing at most m characters.
+    // matched (lo) and matched (hi) are the prefix lengths the pattern shares
+    // with the suffixes just outside the range, so every suffix in between
+    // shares at least their minimum and those characters are not compared again.
+    private int lowerBound(String pattern) {
+        int lo = 0;
+        int hi = n;
+        int loMatch = 0;
+        int hiMatch = 0;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int start = get(sa, mid);
+            int l = matchLength(start, pattern, Math.min(loMatch, hiMatch));
+            if (l == pattern.length() || (start + l < n && charAt(start + l) > pattern.charAt(l))) {
+                hi = mid;
+                hiMatch = l;
+            } else {
+                lo = mid + 1;
+                loMatch = l;
+            }
+        }
+        return lo;
+    }
+    
+    // First rank whose suffix is > pattern and does not start with it
+    private int upperBound(String pattern) {
+        int lo = 0;
+        int hi = n;
+        int loMatch = 0;
+        int hiMatch = 0;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int start = get(sa, mid);
+            int l = matchLength(start, pattern, Math.min(loMatch, hiMatch));
+            if (l < pattern.length() && start + l < n && charAt(start + l) > pattern.charAt(l)) {
+                hi = mid;
+                hiMatch = l;
+            } else {
+                lo = mid + 1;
+                loMatch = l;
+            }
+        }
+        return lo;
+    }
+    
+    private int matchLength(int start, String pattern, int known) {
+        int l = known;
+        int m = pattern.length();
+        while (l < m && start + l < n && charAt(start + l) == pattern.charAt(l)) {
+            l++;
+        }
+        return l;
+    }
+    
+    private char charAt(int i) {
+        return text[i >>> CHUNK_SHIFT].get(i & CHUNK_MASK);
+    }
+    
+    private static int get(IntBuffer[] chunks, int i) {
+        return chunks[i >>> CHUNK_SHIFT].get(i & CHUNK_MASK);
+    }
+    
+    private static int chunkCount(int n) {
+        return Math.max(1, (int) (((long) n + CHUNK_MASK) >>> CHUNK_SHIFT));
+    }
+    
+    private static long align4(long bytes) {
+        return (bytes + 3) & ~3L;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("SuffixArrayIndex[%d chars, %.1f MB]", n, sizeInBytes() / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Linear-time suffix array construction (SA-IS)
+ * =============================================
+ * Nong, Zhang and Chan's induced sorting: the LMS substrings are sorted
+ * by induction, named, and sorted recursively only when two of them are
+ * equal. Everything lives in int arrays, about 6n + O(alphabet) ints of
+ * working memory at the top level.
+ */
+
+import java.util.Arrays;
+
+final class SuffixSorter {
+    
+    private SuffixSorter() {
+    }
+    
+    /**
+     * Returns the suffix array of the text: the start positions of all
+     * non-empty suffixes in lexicographic (char value) order.
+     */
+    static int[] suffixArray(CharSequence text) {
+        int n = text.length();
+        // Map the characters to dense ranks so the bucket arrays stay small
+        boolean[] used = new boolean[Character.MAX_VALUE + 1];
+        for (int i = 0; i < n; i++) {
+            used[text.charAt(i)] = true;
+        }
+        int[] rank = new int[Character.MAX_VALUE + 1];
+        int upper = -1;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (used[c]) {
+                rank[c] = ++upper;
+            }
+        }
+        int[] s = new int[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = rank[text.charAt(i)];
+        }
+        return sort(s, Math.max(upper, 0));
+    }
+    
+    /**
+     * Kasai's algorithm: lcp[r] is the length of the longest common prefix
+     * of the suffixes of rank r - 1 and r, and lcp[0] is 0.
+     */
+    static int[] lcpArray(CharSequence text, int[] sa) {
+        int n = sa.length;
+        int[] rankOf = new int[n];
+        for (int r = 0; r < n; r++) {
+            rankOf[sa[r]] = r;
+        }
+        int[] lcp = new int[n];
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            int r = rankOf[i];
+            if (r == 0) {
+                h = 0;
+                continue;
+            }
+            int j = sa[r - 1];
+            while (i + h < n && j + h < n && text.charAt(i + h) == text.charAt(j + h)) {
+                h++;
+            }
+            lcp[r] = h;
+            if (h > 0) {
+                h--;
+            }
+        }
+        return lcp;
+    }
+    
+    /**
+     * SA-IS over symbols in [0, upper].
+     */
+    static int[] sort(int[] s, int upper) {
+        int n = s.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        if (n == 1) {
+            return new int[] {0};
+        }
+        if (n == 2) {
+            return s[0] < s[1] ? new int[] {0, 1} : new int[] {1, 0};
+        }
+        
+        // S-type (true) or L-type (false); the last suffix is L-type
+        boolean[] ls = new boolean[n];
+        for (int i = n - 2; i >= 0; i--) {
+            ls[i] = s[i] == s[i + 1] ? ls[i + 1] : s[i] < s[i + 1];
+        }
+        
+        // Bucket starts: sumL for the L-type part, sumS for the S-type part
+        int[] sumL = new int[upper + 1];
+        int[] sumS = new int[upper + 1];
+        for (int i = 0; i < n; i++) {
+            if (!ls[i]) {
+                sumS[s[i]]++;
+            } else {
+                sumL[s[i] + 1]++;
+            }
+        }
+        for (int c = 0; c <= upper; c++) {
+            sumS[c] += sumL[c];
+            if (c < upper) {
+                sumL[c + 1] += sumS[c];
+            }
+        }
+        
+        int[] lmsMap = new int[n + 1];
+        Arrays.fill(lmsMap, -1);
+        int m = 0;
+        for (int i = 1; i < n; i++) {
+            if (!ls[i - 1] && ls[i]) {
+                lmsMap[i] = m++;
+            }
+        }
+        int[] lms = new int[m];
+        for (int i = 1, k = 0; i < n; i++) {
+            if (!ls[i - 1] && ls[i]) {
+                lms[k++] = i;
+            }
+        }
+        
+        int[] sa = new int[n];
+        int[] buf = new int[upper + 1];
+        induce(s, ls, sumL, sumS, buf, lms, sa);
+        
+        if (m > 0) {
+            int[] sortedLms = new int[m];
+            int k = 0;
+            for (int v : sa) {
+                if (lmsMap[v] != -1) {
+                    sortedLms[k++] = v;
+                }
+            }
+            
+            // Name the LMS substrings; equal substrings get equal names
+            int[] recS = new int[m];
+            int recUpper = 0;
+            recS[lmsMap[sortedLms[0]]] = 0;
+            for (int i = 1; i < m; i++) {
+                int l = sortedLms[i - 1];
+                int r = sortedLms[i];
+                int endL = lmsMap[l] + 1 < m ? lms[lmsMap[l] + 1] : n;
+                int endR = lmsMap[r] + 1 < m ? lms[lmsMap[r] + 1] : n;
+                boolean same = true;
+                if (endL - l != endR - r) {
+                    same = false;
+                } else {
+                    while (l < endL && s[l] == s[r]) {
+                        l++;
+                        r++;
+                    }
+                    if (l == n || s[l] != s[r]) {
+                        same = false;
+                    }
+                }
+                if (!same) {
+                    recUpper++;
+                }
+                recS[lmsMap[sortedLms[i]]] = recUpper;
+            }
+            
+            int[] recSa = sort(recS, recUpper);
+            for (int i = 0; i < m; i++) {
+                sortedLms[i] = lms[recSa[i]];
+            }
+            induce(s, ls, sumL, sumS, buf, sortedLms, sa);
+        }
+        return sa;
+    }
+    
+    private static void induce(int[] s, boolean[] ls, int[] sumL, int[] sumS, int[] buf,
+                               int[] lms, int[] sa) {
+        int n = s.length;
+        Arrays.fill(sa, -1);
+        
+        System.arraycopy(sumS, 0, buf, 0, buf.length);
+        for (int d : lms) {
+            if (d != n) {
+                sa[buf[s[d]]++] = d;
+            }
+        }
+        
+        System.arraycopy(sumL, 0, buf, 0, buf.length);
+        sa[buf[s[n - 1]]++] = n - 1;
+        for (int i = 0; i < n; i++) {
+            int v = sa[i];
+            if (v >= 1 && !ls[v - 1]) {
+                sa[buf[s[v - 1]]++] = v - 1;
+            }
+        }
+        
+        System.arraycopy(sumL, 0, buf, 0, buf.length);
+        for (int i = n - 1; i >= 0; i--) {
+            int v = sa[i];
+            if (v >= 1 && ls[v - 1]) {
+                sa[--buf[s[v - 1] + 1]] = v - 1;
+            }
+        }
+    }
+}
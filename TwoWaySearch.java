@@ -0,0 +1,230 @@
+/**
+ * Crochemore-Perrin Two-Way search
+ * ================================
+ * Splits the pattern at a critical factorization x = u v, matches v left
+ * to right and then u right to left. Linear time with only a few ints of
+ * extra space, and the "memory" of the periodic case keeps repetitive
+ * patterns such as "aaa" from rescanning the text. The pattern must be
+ * non-empty.
+ */
+
+import java.util.function.IntConsumer;
+
+final class TwoWaySearch implements SearchAlgorithm.Finder {
+    
+    private final String pattern;
+    
+    // Position of the last character of u (may be -1 when u is empty)
+    private final int ell;
+    
+    // Period of the pattern when periodic, otherwise a safe shift after a match
+    private final int period;
+    
+    private final boolean periodic;
+    
+    TwoWaySearch(String pattern) {
+        this.pattern = pattern;
+        int m = pattern.length();
+        
+        // The critical factorization is the later of the two maximal suffixes
+        int[] forward = maxSuffix(pattern, false);
+        int[] reverse = maxSuffix(pattern, true);
+        int l;
+        int p;
+        if (forward[0] > reverse[0]) {
+            l = forward[0];
+            p = forward[1];
+        } else {
+            l = reverse[0];
+            p = reverse[1];
+        }
+        
+        if (pattern.regionMatches(0, pattern, p, l + 1)) {
+            periodic = true;
+            period = p;
+        } else {
+            periodic = false;
+            period = Math.max(l + 1, m - l - 1) + 1;
+        }
+        ell = l;
+    }
+    
+    /**
+     * Computes the maximal suffix of the pattern for the normal (or the
+     * reversed) character order. Returns {start - 1, period}.
+     */
+    private static int[] maxSuffix(String x, boolean reversed) {
+        int m = x.length();
+        int ms = -1;
+        int j = 0;
+        int k = 1;
+        int p = 1;
+        while (j + k < m) {
+            char a = x.charAt(j + k);
+            char b = x.charAt(ms + k);
+            if (reversed ? a > b : a < b) {
+                j += k;
+                k = 1;
+                p = j - ms;
+            } else if (a == b) {
+                if (k != p) {
+                    k++;
+                } else {
+                    j += p;
+                    k = 1;
+                }
+            } else {
+                ms = j;
+                j = ms + 1;
+                k = 1;
+                p = 1;
+            }
+        }
+        return new int[] {ms, p};
+    }
+    
+    @Override
+    public int patternLength() {
+        return pattern.length();
+    }
+    
+    @Override
+    public int indexOf(String text, int from, int to) {
+        return scan(text, from, to, null);
+    }
+    
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink) {
+        scan(text, from, to, sink);
+    }
+    
+    /**
+     * Returns the first match when sink is null, otherwise reports every
+     * match and returns -1.
+     */
+    private int scan(String text, int from, int to, IntConsumer sink) {
+        int m = pattern.length();
+        int limit = to - m;
+        int j = from;
+        
+        if (periodic) {
+            int memory = -1;
+            while (j <= limit) {
+                // Right half, skipping the prefix remembered from the last shift
+                int i = Math.max(ell, memory) + 1;
+                while (i < m && pattern.charAt(i) == text.charAt(i + j)) {
+                    i++;
+                }
+                if (i >= m) {
+                    // Left half, right to left
+                    i = ell;
+                    while (i > memory && pattern.charAt(i) == text.charAt(i + j)) {
+                        i--;
+                    }
+                    if (i <= memory) {
+                        if (sink == null) {
+                            return j;
+                        }
+                        sink.accept(j);
+                    }
+                    j += period;
+                    memory = m - period - 1;
+                } else {
+                    j += i - ell;
+                    memory = -1;
+                }
+            }
+        } else {
+            while (j <= limit) {
+                int i = ell + 1;
+                while (i < m && pattern.charAt(i) == text.charAt(i + j)) {
+                    i++;
+                }
+                if (i >= m) {
+                    i = ell;
+                    while (i >= 0 && pattern.charAt(i) == text.charAt(i + j)) {
+                        i--;
+                    }
+                    if (i < 0) {
+                        if (sink == null) {
+                            return j;
+                        }
+                        sink.accept(j);
+                    }
+                    j += period;
+                } else {
+                    j += i - ell;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Counting copy of scan().
+     */
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink, SearchMetrics metrics) {
+        int m = pattern.length();
+        metrics.charsScanned += Math.max(0, to - from);
+        long comparisons = 0;
+        long windows = 0;
+        int limit = to - m;
+        int j = from;
+        
+        if (periodic) {
+            int memory = -1;
+            while (j <= limit) {
+                windows++;
+                int start = Math.max(ell, memory) + 1;
+                int i = start;
+                while (i < m && pattern.charAt(i) == text.charAt(i + j)) {
+                    i++;
+                }
+                comparisons += i < m ? i - start + 1 : i - start;
+                if (i >= m) {
+                    i = ell;
+                    while (i > memory && pattern.charAt(i) == text.charAt(i + j)) {
+                        i--;
+                    }
+                    comparisons += i > memory ? ell - i + 1 : ell - i;
+                    if (i <= memory) {
+                        metrics.matches++;
+                        sink.accept(j);
+                    }
+                    j += period;
+                    memory = m - period - 1;
+                } else {
+                    j += i - ell;
+                    memory = -1;
+                }
+            }
+        } else {
+            while (j <= limit) {
+                windows++;
+                int i = ell + 1;
+                while (i < m && pattern.charAt(i) == text.charAt(i + j)) {
+                    i++;
+                }
+                comparisons += i < m ? i - ell : i - ell - 1;
+                if (i >= m) {
+                    i = ell;
+                    while (i >= 0 && pattern.charAt(i) == text.charAt(i + j)) {
+                        i--;
+                    }
+                    comparisons += i >= 0 ? ell - i + 1 : ell - i;
+                    if (i < 0) {
+                        metrics.matches++;
+                        sink.accept(j);
+                    }
+                    j += period;
+                } else {
+                    j += i - ell;
+                }
+            }
+        }
+        metrics.comparisons += comparisons;
+        metrics.windows += windows;
+        metrics.shifts += Math.max(0, j - from);
+    }
+}
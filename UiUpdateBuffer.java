@@ -0,0 +1,114 @@
+/**
+ * Hand-off between the search thread and the JavaFX thread
+ * ========================================================
+ * The search thread records what should appear on screen; a single
+ * consumer on the FX thread (an AnimationTimer) drains it once per frame.
+ * 
+ * - Log text goes through a bounded ring buffer. When it is full the
+ *   search thread waits, so a fast search can never flood the FX thread.
+ * - Only the most recent visualization frame and status text are kept:
+ *   if the screen falls behind, intermediate frames are simply dropped.
+ */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+final class UiUpdateBuffer {
+    
+    /**
+     * One state of the canvas visualization.
+     */
+    static final class Frame {
+        final String text;
+        final String pattern;
+        final int position;
+        final int comparingIndex;
+        final Boolean isMatch;
+        
+        Frame(String text, String pattern, int position, int comparingIndex, Boolean isMatch) {
+            this.text = text;
+            this.pattern = pattern;
+            this.position = position;
+            this.comparingIndex = comparingIndex;
+            this.isMatch = isMatch;
+        }
+    }
+    
+    private static final long WAIT_MILLIS = 50;
+    
+    private final ArrayBlockingQueue<String> log;
+    private final AtomicReference<Frame> frame = new AtomicReference<>();
+    private final AtomicReference<String> status = new AtomicReference<>();
+    private volatile boolean closed;
+    
+    UiUpdateBuffer(int capacity) {
+        log = new ArrayBlockingQueue<>(capacity);
+    }
+    
+    /**
+     * Queues log text, waiting while the buffer is full. Text logged after
+     * close() is dropped.
+     */
+    void log(String text) {
+        try {
+            while (!closed) {
+                if (log.offer(text, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    void frame(Frame next) {
+        frame.set(next);
+    }
+    
+    void status(String text) {
+        status.set(text);
+    }
+    
+    /**
+     * Passes at most max queued log entries to the consumer and returns
+     * how many were passed.
+     */
+    int drainLog(Consumer<String> consumer, int max) {
+        int drained = 0;
+        String text;
+        while (drained < max && (text = log.poll()) != null) {
+            consumer.accept(text);
+            drained++;
+        }
+        return drained;
+    }
+    
+    /**
+     * Returns the latest frame since the last call, or null.
+     */
+    Frame takeFrame() {
+        return frame.getAndSet(null);
+    }
+    
+    /**
+     * Returns the latest status since the last call, or null.
+     */
+    String takeStatus() {
+        return status.getAndSet(null);
+    }
+    
+    void clear() {
+        log.clear();
+        frame.set(null);
+    }
+    
+    /**
+     * Stops accepting log text, releasing a search thread that is waiting.
+     */
+    void close() {
+        closed = true;
+        log.clear();
+    }
+}
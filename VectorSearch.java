@@ -0,0 +1,161 @@
+/**
+ * SIMD candidate scan with the Vector API
+ * =======================================
+ * Compares the pattern's first and last characters against a whole vector
+ * of text positions at once (16 chars per compare with 256-bit registers,
+ * 32 with 512-bit) and only verifies the positions where both agree.
+ * 
+ * Needs the jdk.incubator.vector module, both to compile and to run:
+ *   javac --add-modules jdk.incubator.vector VectorSearch.java
+ *   java --add-modules jdk.incubator.vector ...
+ * Do not use this class directly; Algorithm.SIMD loads it through
+ * VectorSupport and falls back to the scalar search when it is missing.
+ */
+
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorSearch implements SearchAlgorithm.Finder {
+    
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    
+    // The text is copied into a small scratch array one block at a time,
+    // because vectors can only be loaded from arrays
+    private static final int BLOCK = 4096;
+    
+    private final char[] pattern;
+    private final short first;
+    private final short last;
+    
+    VectorSearch(String pattern) {
+        this.pattern = pattern.toCharArray();
+        this.first = (short) this.pattern[0];
+        this.last = (short) this.pattern[this.pattern.length - 1];
+    }
+    
+    static int lanes() {
+        return SPECIES.length();
+    }
+    
+    @Override
+    public int patternLength() {
+        return pattern.length;
+    }
+    
+    @Override
+    public int indexOf(String text, int from, int to) {
+        return scan(text, from, to, null);
+    }
+    
+    @Override
+    public void findAll(String text, int from, int to, IntConsumer sink) {
+        scan(text, from, to, sink);
+    }
+    
+    /**
+     * Returns the first match when sink is null, otherwise reports every
+     * match and returns -1.
+     */
+    private int scan(String text, int from, int to, IntConsumer sink) {
+        int m = pattern.length;
+        int lanes = SPECIES.length();
+        int lastStart = to - m;
+        if (from > lastStart) {
+            return -1;
+        }
+        char[] buffer = new char[Math.min(BLOCK, lastStart - from + 1) + m - 1];
+        
+        for (int blockStart = from; blockStart <= lastStart; blockStart += BLOCK) {
+            // Candidate starts in this block, plus the m - 1 characters they need
+            int count = Math.min(BLOCK, lastStart - blockStart + 1);
+            text.getChars(blockStart, blockStart + count + m - 1, buffer, 0);
+            
+            int i = 0;
+            for (; i + lanes <= count; i += lanes) {
+                ShortVector firsts = ShortVector.fromCharArray(SPECIES, buffer, i);
+                ShortVector lasts = ShortVector.fromCharArray(SPECIES, buffer, i + m - 1);
+                VectorMask<Short> candidates = firsts.eq(first).and(lasts.eq(last));
+                long bits = candidates.toLong();
+                while (bits != 0) {
+                    int candidate = i + Long.numberOfTrailingZeros(bits);
+                    if (matchesAt(buffer, candidate)) {
+                        if (sink == null) {
+                            return blockStart + candidate;
+                        }
+                        sink.accept(blockStart + candidate);
+                    }
+                    bits &= bits - 1;
+                }
+            }
+            
+            // Scalar tail, shorter than one vector
+            for (; i < count; i++) {
+                if (buffer[i] == pattern[0] && buffer[i + m - 1] == pattern[m - 1] && matchesAt(buffer, i)) {
+                    if (sink == null) {
+                        return blockStart + i;
+                    }
+                    sink.accept(blockStart + i);
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Checks the characters between the first and the last one.
+     */
+    private boolean matchesAt(char[] buffer, int start) {
+        for (int j = 1; j < pattern.length - 1; j++) {
+            if (buffer[start + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Measures the speedup over the naive search on ASCII and on mixed
+     * Unicode text.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 24;
+        Random random = new Random(42);
+        String ascii = randomText(random, "abcdefghijklmnopqrstuvwxyz ,.", size);
+        String unicode = randomText(random, "abcdéèçñßøαβγδ中文字日本語😀 ", size);
+        
+        System.out.println("Vector lanes: " + lanes());
+        compare("ASCII", ascii, ascii.substring(size / 2, size / 2 + 12));
+        compare("Mixed Unicode", unicode, unicode.substring(size / 2, size / 2 + 12));
+    }
+    
+    private static void compare(String label, String text, String pattern) {
+        SearchAlgorithm.Finder naive = Algorithm.NAIVE.prepare(pattern);
+        SearchAlgorithm.Finder vector = new VectorSearch(pattern);
+        double naiveMs = time(naive, text);
+        double vectorMs = time(vector, text);
+        System.out.printf("%-14s naive %8.2f ms   vector %8.2f ms   speedup %.2fx%n",
+            label, naiveMs, vectorMs, naiveMs / vectorMs);
+    }
+    
+    private static double time(SearchAlgorithm.Finder finder, String text) {
+        double best = Double.MAX_VALUE;
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            finder.findAll(text, 0, text.length(), new IntList());
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+    
+    private static String randomText(Random random, String alphabet, int size) {
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.substring(0, size);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Optional loader for the SIMD search
+ * ===================================
+ * VectorSearch depends on the jdk.incubator.vector module. It is loaded
+ * reflectively so that everything else compiles and runs without that
+ * module; when it cannot be loaded, the scalar NaiveSearch is used.
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+final class VectorSupport {
+    
+    private static final Constructor<?> VECTOR_SEARCH = load();
+    
+    private VectorSupport() {
+    }
+    
+    private static Constructor<?> load() {
+        try {
+            // Initializing the class touches the Vector API, so this fails
+            // here rather than on the first search if the module is absent
+            Class<?> type = Class.forName("VectorSearch", true, VectorSupport.class.getClassLoader());
+            return type.getDeclaredConstructor(String.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+    
+    static boolean isAvailable() {
+        return VECTOR_SEARCH != null;
+    }
+    
+    /**
+     * Returns the SIMD finder, or the scalar one if the Vector API is missing.
+     */
+    static SearchAlgorithm.Finder prepare(String pattern) {
+        if (VECTOR_SEARCH == null) {
+            return new NaiveSearch(pattern);
+        }
+        try {
+            return (SearchAlgorithm.Finder) VECTOR_SEARCH.newInstance(pattern);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,670 @@
+/**
+ * Wildcard patterns matched by a lazily built DFA
+ * ===============================================
+ * A small pattern language for the cases where exact search is not
+ * enough but java.util.regex (backtracking, unpredictable latency) is
+ * more than needed:
+ * 
+ * - any other character matches itself; \ makes the next one literal
+ * - ? matches any one character, * any run of characters (also none)
+ * - [abc], [a-z], [^abc] or [!abc] match one character of a class
+ * - (cat|dog|) matches one of several literals; cat|dog at the top level
+ *   is the same as (cat|dog)
+ * 
+ * Like the exact search, searchAll returns the start offset of every
+ * match, overlapping ones included: i is reported when some match starts
+ * at i. To get that in one pass the text is scanned backwards through a
+ * DFA for the reversed pattern, so each character costs one table lookup
+ * and the scan is O(n) whatever the pattern. DFA states are built on
+ * first use and kept; if there are ever more than MAX_DFA_STATES the
+ * cache is dropped and rebuilt.
+ * 
+ * The longest run of literal characters every match must contain is
+ * searched for first. Whenever the DFA is idle the scan jumps straight to
+ * the previous occurrence of that literal (plus the longest text that can
+ * follow it in a match), so text that cannot match is skipped unread.
+ * 
+ * Searches on one instance take turns, since they share the DFA cache.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+public final class WildcardPattern {
+    
+    public static final int MAX_DFA_STATES = 4096;
+    
+    // Length bound for "no bound"
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+    
+    // The set of every char, as [first, last] pairs
+    private static final int[] ANY = {0, Character.MAX_VALUE};
+    
+    // NFA state kinds
+    private static final int CHAR = 0;
+    private static final int SPLIT = 1;
+    private static final int MATCH = 2;
+    
+    private final String pattern;
+    private final CaseMode caseMode;
+    
+    // NFA of the reversed pattern. A CHAR state moves to out1 on a char of
+    // its class set; a SPLIT state moves to both out1 and out2 for free.
+    private final int[] kind;
+    private final int[] out1;
+    private final int[] out2;
+    private final boolean[][] acceptsClass;
+    private final int start;
+    
+    // Chars are mapped to classes that no part of the pattern tells apart;
+    // class i covers [bounds[i - 1], bounds[i])
+    private final int[] bounds;
+    private final int[] asciiClass;
+    private final int classCount;
+    
+    // Required literal (folded) and the most text a match can have after it
+    private final char[] literal;
+    private final int[] literalShift;
+    private final int maxAfterLiteral;
+    
+    // DFA cache, guarded by "this"
+    private final Map<StateKey, Integer> stateIds = new HashMap<>();
+    private int[][] nfaSets = new int[16][];
+    private int[][] transitions = new int[16][];
+    private boolean[] accepting = new boolean[16];
+    private int stateCount;
+    private int initial;
+    
+    // Scratch space for epsilon closures
+    private final int[] mark;
+    private int generation;
+    private final int[] stack;
+    
+    private WildcardPattern(String pattern, CaseMode caseMode) {
+        this.pattern = pattern;
+        this.caseMode = caseMode;
+        List<Item> items = new Parser(pattern, caseMode).parse();
+        
+        // Character classes
+        List<Integer> edges = new ArrayList<>();
+        for (Item item : items) {
+            for (int[] set : item.sets()) {
+                for (int r = 0; r < set.length; r += 2) {
+                    edges.add(set[r]);
+                    edges.add(set[r + 1] + 1);
+                }
+            }
+        }
+        bounds = edges.stream().mapToInt(Integer::intValue)
+            .filter(e -> e > 0 && e <= Character.MAX_VALUE).sorted().distinct().toArray();
+        classCount = bounds.length + 1;
+        asciiClass = new int[128];
+        for (int c = 0; c < 128; c++) {
+            asciiClass[c] = classOfSlow((char) c);
+        }
+        
+        // Thompson NFA of the reversed pattern: built from the MATCH state
+        // back, so the items are visited in their original order
+        NfaBuilder nfa = new NfaBuilder();
+        int next = nfa.add(MATCH, -1, -1, null);
+        for (Item item : items) {
+            if (item.star) {
+                int split = nfa.add(SPLIT, -1, next, null);
+                nfa.out1.set(split, nfa.add(CHAR, split, -1, ANY));
+                next = split;
+            } else if (item.alternatives != null) {
+                int[] branches = new int[item.alternatives.length];
+                for (int a = 0; a < branches.length; a++) {
+                    int branch = next;
+                    for (char c : item.alternatives[a].toCharArray()) {
+                        branch = nfa.add(CHAR, branch, -1, new int[] {c, c});
+                    }
+                    branches[a] = branch;
+                }
+                int joined = branches[branches.length - 1];
+                for (int a = branches.length - 2; a >= 0; a--) {
+                    joined = nfa.add(SPLIT, branches[a], joined, null);
+                }
+                next = joined;
+            } else {
+                next = nfa.add(CHAR, next, -1, item.set);
+            }
+        }
+        start = next;
+        int states = nfa.kind.size();
+        kind = new int[states];
+        out1 = new int[states];
+        out2 = new int[states];
+        acceptsClass = new boolean[states][];
+        for (int q = 0; q < states; q++) {
+            kind[q] = nfa.kind.get(q);
+            out1[q] = nfa.out1.get(q);
+            out2[q] = nfa.out2.get(q);
+            int[] set = nfa.sets.get(q);
+            if (set != null) {
+                acceptsClass[q] = new boolean[classCount];
+                for (int cls = 0; cls < classCount; cls++) {
+                    acceptsClass[q][cls] = contains(set, cls == 0 ? 0 : bounds[cls - 1]);
+                }
+            }
+        }
+        mark = new int[states];
+        stack = new int[2 * states + 1];
+        
+        // Required literal: the longest run of single characters
+        int bestStart = 0;
+        int bestLength = 0;
+        int run = 0;
+        for (int i = 0; i < items.size(); i++) {
+            run = items.get(i).isLiteral() ? run + 1 : 0;
+            if (run > bestLength) {
+                bestLength = run;
+                bestStart = i - run + 1;
+            }
+        }
+        literal = new char[bestLength];
+        for (int i = 0; i < bestLength; i++) {
+            literal[i] = (char) items.get(bestStart + i).set[0];
+        }
+        long after = 0;
+        for (int i = bestStart + bestLength; i < items.size(); i++) {
+            after += items.get(i).maxLength();
+        }
+        maxAfterLiteral = (int) Math.min(after, UNBOUNDED);
+        
+        // Shift table for searching the literal backwards: the window moves
+        // left until its first char lines up with the same char further
+        // right in the literal
+        literalShift = new int[256];
+        Arrays.fill(literalShift, Math.max(bestLength, 1));
+        for (int j = bestLength - 1; j > 0; j--) {
+            literalShift[literal[j] & 0xFF] = j;
+        }
+        
+        initial = intern(closure(new int[0], start));
+    }
+    
+    public static WildcardPattern compile(String pattern) {
+        return new WildcardPattern(pattern, CaseMode.SENSITIVE);
+    }
+    
+    /**
+     * Compiles the pattern; throws IllegalArgumentException with the
+     * offending offset if the syntax is wrong.
+     */
+    public static WildcardPattern compile(String pattern, CaseMode caseMode) {
+        return new WildcardPattern(pattern, caseMode);
+    }
+    
+    public String pattern() {
+        return pattern;
+    }
+    
+    public CaseMode caseMode() {
+        return caseMode;
+    }
+    
+    /**
+     * The literal every match contains, used to skip text; empty if there
+     * is none.
+     */
+    public String requiredLiteral() {
+        return new String(literal);
+    }
+    
+    /**
+     * Number of DFA states built so far.
+     */
+    public synchronized int dfaStates() {
+        return stateCount;
+    }
+    
+    /**
+     * Returns the start offset of every match, in increasing order.
+     */
+    public IntList searchAll(String text) {
+        IntList matches = new IntList();
+        findAll(text, 0, text.length(), matches);
+        return matches;
+    }
+    
+    public boolean contains(String text) {
+        return scan(text, 0, text.length(), null) >= 0;
+    }
+    
+    /**
+     * Reports, in increasing order, every i in [from, to) (and to itself,
+     * if the pattern matches the empty string) where a match lying inside
+     * [from, to) starts.
+     */
+    public void findAll(String text, int from, int to, IntConsumer sink) {
+        if (from < 0 || from > to || to > text.length()) {
+            throw new IndexOutOfBoundsException(
+                "Range [" + from + ", " + to + ") out of bounds for length " + text.length());
+        }
+        // The scan finds them last to first
+        IntList found = new IntList();
+        scan(text, from, to, found);
+        for (int i = found.size() - 1; i >= 0; i--) {
+            sink.accept(found.get(i));
+        }
+    }
+    
+    // Scans [from, to) backwards and adds the match starts to found, or
+    // returns the first one seen if found is null. Returns -1 otherwise.
+    private synchronized int scan(String text, int from, int to, IntList found) {
+        int state = initial;
+        if (accepting[state]) {
+            if (found == null) {
+                return to;
+            }
+            found.add(to);
+        }
+        boolean prefilter = literal.length > 0;
+        int occurrence = -1;
+        int i = to;
+        while (i > from) {
+            if (state == initial && prefilter) {
+                // Nothing is in progress, so the next match ends at most
+                // maxAfterLiteral past an occurrence of the literal
+                if (occurrence < 0 || occurrence + literal.length > i) {
+                    occurrence = lastIndexOfLiteral(text, from, i);
+                    if (occurrence < 0) {
+                        break;
+                    }
+                }
+                long end = (long) occurrence + literal.length + maxAfterLiteral;
+                if (end < i) {
+                    i = (int) end;
+                }
+            }
+            i--;
+            char c = caseMode.foldedCharAt(text, i);
+            int cls = c < 128 ? asciiClass[c] : classOfSlow(c);
+            int next = transitions[state][cls];
+            state = next >= 0 ? next : computeTransition(state, cls);
+            if (accepting[state]) {
+                if (found == null) {
+                    return i;
+                }
+                found.add(i);
+            }
+        }
+        return found == null || found.isEmpty() ? -1 : found.get(found.size() - 1);
+    }
+    
+    // Last occurrence of the literal inside [from, to), or -1: Horspool run
+    // right to left
+    private int lastIndexOfLiteral(String text, int from, int to) {
+        int m = literal.length;
+        char first = literal[0];
+        int i = to - m;
+        while (i >= from) {
+            char c = caseMode.foldedCharAt(text, i);
+            if (c == first) {
+                int j = 1;
+                while (j < m && caseMode.foldedCharAt(text, i + j) == literal[j]) {
+                    j++;
+                }
+                if (j == m) {
+                    return i;
+                }
+            }
+            i -= literalShift[c & 0xFF];
+        }
+        return -1;
+    }
+    
+    private int computeTransition(int state, int cls) {
+        int[] set = nfaSets[state];
+        int[] next = new int[0];
+        for (int q : set) {
+            if (kind[q] == CHAR && acceptsClass[q][cls]) {
+                next = closure(next, out1[q]);
+            }
+        }
+        // The pattern may also start matching at any position
+        next = closure(next, start);
+        if (stateCount >= MAX_DFA_STATES) {
+            flush();
+            return intern(next);
+        }
+        int target = intern(next);
+        transitions[state][cls] = target;
+        return target;
+    }
+    
+    // Drops every cached state and builds the initial one again
+    private void flush() {
+        int[] initialSet = nfaSets[initial];
+        stateIds.clear();
+        stateCount = 0;
+        initial = intern(initialSet);
+    }
+    
+    // Adds the CHAR and MATCH states reachable from q to the sorted set
+    private int[] closure(int[] set, int q) {
+        generation++;
+        for (int s : set) {
+            mark[s] = generation;
+        }
+        int[] result = Arrays.copyOf(set, set.length + kind.length);
+        int size = set.length;
+        int top = 0;
+        stack[top++] = q;
+        while (top > 0) {
+            int s = stack[--top];
+            if (mark[s] == generation) {
+                continue;
+            }
+            mark[s] = generation;
+            if (kind[s] == SPLIT) {
+                stack[top++] = out2[s];
+                stack[top++] = out1[s];
+            } else {
+                result[size++] = s;
+            }
+        }
+        result = Arrays.copyOf(result, size);
+        Arrays.sort(result);
+        return result;
+    }
+    
+    private int intern(int[] set) {
+        StateKey key = new StateKey(set);
+        Integer id = stateIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        int state = stateCount++;
+        if (state == nfaSets.length) {
+            int capacity = state * 2;
+            nfaSets = Arrays.copyOf(nfaSets, capacity);
+            transitions = Arrays.copyOf(transitions, capacity);
+            accepting = Arrays.copyOf(accepting, capacity);
+        }
+        nfaSets[state] = set;
+        transitions[state] = new int[classCount];
+        Arrays.fill(transitions[state], -1);
+        boolean match = false;
+        for (int q : set) {
+            match |= kind[q] == MATCH;
+        }
+        accepting[state] = match;
+        stateIds.put(key, state);
+        return state;
+    }
+    
+    private int classOfSlow(char c) {
+        int i = Arrays.binarySearch(bounds, c);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+    
+    private static boolean contains(int[] set, int c) {
+        for (int r = 0; r < set.length; r += 2) {
+            if (c >= set[r] && c <= set[r + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public String toString() {
+        return "WildcardPattern['" + pattern + "', " + caseMode + "]";
+    }
+    
+    private static final class StateKey {
+        private final int[] states;
+        private final int hash;
+        
+        StateKey(int[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StateKey && Arrays.equals(states, ((StateKey) other).states);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    private static final class NfaBuilder {
+        final List<Integer> kind = new ArrayList<>();
+        final List<Integer> out1 = new ArrayList<>();
+        final List<Integer> out2 = new ArrayList<>();
+        final List<int[]> sets = new ArrayList<>();
+        
+        int add(int stateKind, int next1, int next2, int[] set) {
+            kind.add(stateKind);
+            out1.add(next1);
+            out2.add(next2);
+            sets.add(set);
+            return kind.size() - 1;
+        }
+    }
+    
+    // One element of the pattern: a char class, a star, or a group of
+    // alternative literals. Sets are folded [first, last] pairs.
+    private static final class Item {
+        int[] set;
+        boolean star;
+        String[] alternatives;
+        
+        boolean isLiteral() {
+            return set != null && set.length == 2 && set[0] == set[1];
+        }
+        
+        int maxLength() {
+            if (star) {
+                return UNBOUNDED;
+            }
+            if (alternatives != null) {
+                return Arrays.stream(alternatives).mapToInt(String::length).max().orElse(0);
+            }
+            return 1;
+        }
+        
+        List<int[]> sets() {
+            List<int[]> sets = new ArrayList<>();
+            if (set != null) {
+                sets.add(set);
+            }
+            if (alternatives != null) {
+                for (String alternative : alternatives) {
+                    for (char c : alternative.toCharArray()) {
+                        sets.add(new int[] {c, c});
+                    }
+                }
+            }
+            return sets;
+        }
+    }
+    
+    private static final class Parser {
+        private final String source;
+        private final String pattern;
+        private final CaseMode caseMode;
+        private int pos;
+        
+        Parser(String pattern, CaseMode caseMode) {
+            this.source = pattern;
+            this.pattern = hasTopLevelBar(pattern) ? "(" + pattern + ")" : pattern;
+            this.caseMode = caseMode;
+        }
+        
+        List<Item> parse() {
+            List<Item> items = new ArrayList<>();
+            while (pos < pattern.length()) {
+                char c = pattern.charAt(pos);
+                Item item = new Item();
+                if (c == '*') {
+                    pos++;
+                    // ** is the same as *
+                    if (!items.isEmpty() && items.get(items.size() - 1).star) {
+                        continue;
+                    }
+                    item.star = true;
+                } else if (c == '?') {
+                    pos++;
+                    item.set = ANY;
+                } else if (c == '[') {
+                    item.set = parseClass();
+                } else if (c == '(') {
+                    item.alternatives = parseGroup();
+                } else if (c == ')' || c == ']' || c == '|') {
+                    throw error("Unexpected '" + c + "'");
+                } else {
+                    char folded = literalAt(pos);
+                    item.set = new int[] {folded, folded};
+                }
+                items.add(item);
+            }
+            return items;
+        }
+        
+        // Folded literal char at the position, after a backslash if any
+        private char literalAt(int at) {
+            if (pattern.charAt(at) == '\\') {
+                if (at + 1 == pattern.length()) {
+                    throw error("Trailing backslash");
+                }
+                pos = at + 2;
+                return caseMode.fold(pattern.charAt(at + 1));
+            }
+            pos = at + 1;
+            return caseMode.foldedCharAt(pattern, at);
+        }
+        
+        private int[] parseClass() {
+            int open = pos++;
+            boolean negated = pos < pattern.length() && (pattern.charAt(pos) == '^' || pattern.charAt(pos) == '!');
+            if (negated) {
+                pos++;
+            }
+            BitSet members = new BitSet(Character.MAX_VALUE + 1);
+            boolean first = true;
+            while (true) {
+                if (pos >= pattern.length()) {
+                    pos = open;
+                    throw error("Unclosed '['");
+                }
+                char c = pattern.charAt(pos);
+                if (c == ']' && !first) {
+                    pos++;
+                    break;
+                }
+                first = false;
+                char low = rawAt(pos);
+                char high = low;
+                if (pos + 1 < pattern.length() && pattern.charAt(pos) == '-' && pattern.charAt(pos + 1) != ']') {
+                    high = rawAt(pos + 1);
+                    if (high < low) {
+                        throw error("Empty range " + low + "-" + high);
+                    }
+                }
+                for (int x = low; x <= high; x++) {
+                    members.set(caseMode.fold((char) x));
+                }
+            }
+            if (negated) {
+                members.flip(0, Character.MAX_VALUE + 1);
+            }
+            if (members.isEmpty()) {
+                throw error("Class matches nothing");
+            }
+            List<Integer> ranges = new ArrayList<>();
+            for (int low = members.nextSetBit(0); low >= 0; ) {
+                int end = members.nextClearBit(low);
+                ranges.add(low);
+                ranges.add(end - 1);
+                low = end > Character.MAX_VALUE ? -1 : members.nextSetBit(end);
+            }
+            return ranges.stream().mapToInt(Integer::intValue).toArray();
+        }
+        
+        // Unfolded char at the position, after a backslash if any
+        private char rawAt(int at) {
+            if (pattern.charAt(at) == '\\') {
+                if (at + 1 == pattern.length()) {
+                    throw error("Trailing backslash");
+                }
+                pos = at + 2;
+                return pattern.charAt(at + 1);
+            }
+            pos = at + 1;
+            return pattern.charAt(at);
+        }
+        
+        private String[] parseGroup() {
+            int open = pos++;
+            List<String> alternatives = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            while (true) {
+                if (pos >= pattern.length()) {
+                    pos = open;
+                    throw error("Unclosed '('");
+                }
+                char c = pattern.charAt(pos);
+                if (c == ')') {
+                    pos++;
+                    alternatives.add(current.toString());
+                    return alternatives.toArray(new String[0]);
+                } else if (c == '|') {
+                    pos++;
+                    alternatives.add(current.toString());
+                    current.setLength(0);
+                } else if (c == '*' || c == '?' || c == '[' || c == '(') {
+                    throw error("Only literals can be alternated; escape '" + c + "' with \\");
+                } else {
+                    current.append(literalAt(pos));
+                }
+            }
+        }
+        
+        private static boolean hasTopLevelBar(String pattern) {
+            int depth = 0;
+            boolean inClass = false;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (inClass) {
+                    inClass = c != ']';
+                } else if (c == '[') {
+                    inClass = true;
+                    // A ] right after [ or [^ is a member
+                    if (i + 1 < pattern.length() && (pattern.charAt(i + 1) == '^' || pattern.charAt(i + 1) == '!')) {
+                        i++;
+                    }
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == ']') {
+                        i++;
+                    }
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '|' && depth == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private IllegalArgumentException error(String message) {
+            // Offsets refer to what the caller wrote, not the wrapped pattern
+            int at = pattern == source ? pos : Math.max(0, pos - 1);
+            return new IllegalArgumentException(message + " at offset " + at + " in pattern: " + source);
+        }
+    }
+}
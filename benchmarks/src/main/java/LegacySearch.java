@@ -0,0 +1,23 @@
+/**
+ * The original PatternSearch.search, kept as the benchmark baseline.
+ * It allocates one substring per window.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class LegacySearch {
+    
+    private LegacySearch() {
+    }
+    
+    static List<Integer> search(String text, String pattern) {
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i <= text.length() - pattern.length(); i++) {
+            if (text.substring(i, i + pattern.length()).equals(pattern)) {
+                matches.add(i);
+            }
+        }
+        return matches;
+    }
+}
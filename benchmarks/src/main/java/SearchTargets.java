@@ -0,0 +1,61 @@
+/**
+ * The engines under benchmark
+ * ===========================
+ * Lives in the default package, next to the search engine, and hands
+ * prepared searches to the benchmarks package (see SearchTarget).
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import benchmarks.Corpus;
+import benchmarks.SearchTarget;
+
+public class SearchTargets implements SearchTarget.Factory {
+    
+    @Override
+    public SearchTarget create(String engine, Corpus corpus) {
+        String text = corpus.text;
+        String pattern = corpus.pattern;
+        
+        switch (engine) {
+            case "LEGACY_SUBSTRING":
+                return () -> LegacySearch.search(text, pattern).size();
+            case "AUTO": {
+                CompiledPattern compiled = PatternSearch.compile(pattern);
+                return () -> compiled.searchAll(text).size();
+            }
+            case "PARALLEL": {
+                CompiledPattern compiled = PatternSearch.compile(pattern);
+                ParallelSearch parallel = new ParallelSearch();
+                return () -> parallel.searchAll(text, compiled).size();
+            }
+            case "AHO_CORASICK": {
+                AhoCorasick automaton = PatternSearch.compileAll(pattern);
+                return () -> {
+                    int[] count = new int[1];
+                    automaton.findAll(text, (id, offset) -> count[0]++);
+                    return count[0];
+                };
+            }
+            case "BYTES": {
+                ByteSearch search = new ByteSearch(pattern.getBytes(StandardCharsets.ISO_8859_1));
+                ByteBuffer bytes = ByteBuffer.wrap(corpus.bytes);
+                return () -> {
+                    IntList matches = new IntList();
+                    search.findAll(bytes, 0, bytes.limit(), matches);
+                    return matches.size();
+                };
+            }
+            default: {
+                // One of the Algorithm constants, forced
+                SearchAlgorithm.Finder finder = Algorithm.valueOf(engine).prepare(pattern);
+                return () -> {
+                    IntList matches = new IntList();
+                    finder.findAll(text, 0, text.length(), matches);
+                    return matches.size();
+                };
+            }
+        }
+    }
+}
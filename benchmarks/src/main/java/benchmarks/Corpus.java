@@ -0,0 +1,112 @@
+/**
+ * Synthetic corpora for the benchmarks
+ * ====================================
+ * Every corpus is Latin-1, so one char is one byte and "MB" means the
+ * same thing for the String and the byte[] engines.
+ */
+
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+public final class Corpus {
+    
+    public enum Alphabet {
+        DNA("ACGT"),
+        ENGLISH("abcdefghijklmnopqrstuvwxyz      etaoinshr,.ETAOIN"),
+        BINARY(allBytes()),
+        // Text of 'a' only, pattern "aaa...ab": the naive loop's worst case
+        REPETITIVE("a");
+        
+        private final byte[] symbols;
+        
+        Alphabet(String symbols) {
+            this.symbols = symbols.getBytes(StandardCharsets.ISO_8859_1);
+        }
+        
+        private static String allBytes() {
+            char[] all = new char[256];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = (char) i;
+            }
+            return new String(all);
+        }
+    }
+    
+    public enum Density {
+        // No planted matches; only what the random text produces by itself
+        RANDOM(0),
+        SPARSE(1 << 16),
+        DENSE(256);
+        
+        // Distance between planted copies of the pattern
+        private final int spacing;
+        
+        Density(int spacing) {
+            this.spacing = spacing;
+        }
+    }
+    
+    public final byte[] bytes;
+    public final String text;
+    public final String pattern;
+    
+    private Corpus(byte[] bytes, String pattern) {
+        this.bytes = bytes;
+        this.text = new String(bytes, StandardCharsets.ISO_8859_1);
+        this.pattern = pattern;
+    }
+    
+    public static Corpus generate(Alphabet alphabet, int size, int patternLength, Density density, long seed) {
+        Random random = new Random(seed);
+        byte[] patternBytes = new byte[patternLength];
+        if (alphabet == Alphabet.REPETITIVE) {
+            for (int i = 0; i < patternLength - 1; i++) {
+                patternBytes[i] = 'a';
+            }
+            patternBytes[patternLength - 1] = 'b';
+        } else {
+            fill(random, alphabet.symbols, patternBytes);
+        }
+        
+        byte[] bytes = new byte[size];
+        fill(random, alphabet.symbols, bytes);
+        if (density.spacing > 0) {
+            for (int i = density.spacing / 2; i + patternLength <= size; i += density.spacing) {
+                System.arraycopy(patternBytes, 0, bytes, i, patternLength);
+            }
+        }
+        return new Corpus(bytes, new String(patternBytes, StandardCharsets.ISO_8859_1));
+    }
+    
+    private static void fill(Random random, byte[] symbols, byte[] target) {
+        if (symbols.length == 1) {
+            Arrays.fill(target, symbols[0]);
+            return;
+        }
+        for (int i = 0; i < target.length; i++) {
+            target[i] = symbols[random.nextInt(symbols.length)];
+        }
+    }
+    
+    /**
+     * Parses sizes such as "1KB", "64MB" or "1GB".
+     */
+    public static int parseSize(String size) {
+        String s = size.trim().toUpperCase();
+        long unit = 1;
+        if (s.endsWith("KB")) {
+            unit = 1L << 10;
+        } else if (s.endsWith("MB")) {
+            unit = 1L << 20;
+        } else if (s.endsWith("GB")) {
+            unit = 1L << 30;
+        }
+        String digits = unit == 1 ? s : s.substring(0, s.length() - 2);
+        long bytes = Long.parseLong(digits) * unit;
+        // A Java array or String holds at most Integer.MAX_VALUE - 8 elements
+        return (int) Math.min(bytes, Integer.MAX_VALUE - 8);
+    }
+}
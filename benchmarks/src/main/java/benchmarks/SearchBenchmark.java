@@ -0,0 +1,85 @@
+/**
+ * Throughput of every search path
+ * ===============================
+ * One benchmark method, parameterized over the engine and the corpus.
+ * Besides ops/s, JMH reports the "megabytes" counter as MB/s of text
+ * scanned; BenchmarkRunner adds the GC profiler for the allocation rate.
+ * 
+ * The full matrix is large. Pick a slice with -p, e.g.
+ *   java -jar target/benchmarks.jar -p textSize=1MB -p alphabet=DNA
+ */
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "--add-modules=jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    
+    // See SearchTargets for what each engine runs
+    @Param({"NAIVE", "KMP", "HORSPOOL", "TWO_WAY", "RABIN_KARP", "SIMD", "AUTO",
+            "PARALLEL", "AHO_CORASICK", "BYTES", "LEGACY_SUBSTRING"})
+    public String engine;
+    
+    @Param({"1KB", "1MB", "64MB", "1GB"})
+    public String textSize;
+    
+    @Param({"4", "16", "64"})
+    public int patternLength;
+    
+    @Param({"DNA", "ENGLISH", "BINARY", "REPETITIVE"})
+    public Corpus.Alphabet alphabet;
+    
+    @Param({"RANDOM", "SPARSE", "DENSE"})
+    public Corpus.Density density;
+    
+    private SearchTarget target;
+    private double megabytes;
+    
+    /**
+     * Counts the text scanned; JMH turns it into MB/s.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Scanned {
+        public double megabytes;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Corpus corpus = Corpus.generate(alphabet, Corpus.parseSize(textSize), patternLength, density, 42);
+        target = SearchTarget.factory().create(engine, corpus);
+        megabytes = corpus.text.length() / 1e6;
+    }
+    
+    @Benchmark
+    public int search(Scanned scanned) {
+        int count = target.run();
+        scanned.megabytes += megabytes;
+        return count;
+    }
+}
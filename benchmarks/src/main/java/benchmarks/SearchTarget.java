@@ -0,0 +1,30 @@
+/**
+ * One prepared search, ready to be timed
+ * ======================================
+ * JMH refuses benchmarks in the default package, but the search engine
+ * lives there and named packages cannot import from it. The bridge is this
+ * interface: the default-package SearchTargets class implements Factory,
+ * and the benchmark loads it once, by name, during setup.
+ */
+
+package benchmarks;
+
+public interface SearchTarget {
+    
+    /**
+     * Runs the search and returns the number of matches.
+     */
+    int run();
+    
+    interface Factory {
+        SearchTarget create(String engine, Corpus corpus);
+    }
+    
+    static Factory factory() {
+        try {
+            return (Factory) Class.forName("SearchTargets").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("SearchTargets is missing from the classpath", e);
+        }
+    }
+}